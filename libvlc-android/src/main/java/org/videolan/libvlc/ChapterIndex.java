@@ -0,0 +1,123 @@
+/*****************************************************************************
+ * ChapterIndex.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Immutable index of the chapters of a title, sorted by time offset.
+ * <p>
+ * Time lookups are binary searches, so that chapter-marked seekbars and audiobooks with hundreds
+ * of chapters don't need to scan the chapters, nor to call {@link MediaPlayer#getChapter()}.
+ */
+public class ChapterIndex {
+    static final ChapterIndex EMPTY = new ChapterIndex(null);
+
+    private final MediaPlayer.Chapter[] mNativeChapters;
+    private final MediaPlayer.Chapter[] mChapters;
+    private final long[] mOffsets;
+
+    ChapterIndex(@Nullable MediaPlayer.Chapter[] chapters) {
+        mNativeChapters = chapters;
+        if (chapters == null)
+            chapters = new MediaPlayer.Chapter[0];
+        else {
+            chapters = chapters.clone();
+            Arrays.sort(chapters, new Comparator<MediaPlayer.Chapter>() {
+                @Override
+                public int compare(MediaPlayer.Chapter a, MediaPlayer.Chapter b) {
+                    return a.timeOffset < b.timeOffset ? -1 : (a.timeOffset == b.timeOffset ? 0 : 1);
+                }
+            });
+        }
+        mChapters = chapters;
+        mOffsets = new long[chapters.length];
+        for (int i = 0; i < chapters.length; ++i)
+            mOffsets[i] = chapters[i].timeOffset;
+    }
+
+    public int getCount() {
+        return mChapters.length;
+    }
+
+    /**
+     * Get a chapter, by index in time order
+     */
+    public MediaPlayer.Chapter getChapter(int index) {
+        return mChapters[index];
+    }
+
+    /**
+     * Get the chapter playing at a time
+     *
+     * @param time time in ms
+     * @return chapter index, or -1 if the time is before the first chapter
+     */
+    public int getChapterAt(long time) {
+        final int index = Arrays.binarySearch(mOffsets, time);
+        if (index >= 0) {
+            /* several chapters may start at the same offset, take the last one */
+            int i = index;
+            while (i + 1 < mOffsets.length && mOffsets[i + 1] == time)
+                ++i;
+            return i;
+        }
+        /* insertion point - 1 is the last chapter starting before time */
+        return -index - 2;
+    }
+
+    /**
+     * Get the first chapter boundary strictly after a time
+     *
+     * @param time time in ms
+     * @return boundary time in ms, or -1 if there is none
+     */
+    public long getNextBoundary(long time) {
+        final int index = getChapterAt(time) + 1;
+        return index < mOffsets.length ? mOffsets[index] : -1;
+    }
+
+    /**
+     * Get the last chapter boundary strictly before a time
+     *
+     * @param time time in ms
+     * @return boundary time in ms, or -1 if there is none
+     */
+    public long getPreviousBoundary(long time) {
+        int index = Arrays.binarySearch(mOffsets, time);
+        if (index < 0)
+            index = -index - 1;
+        else
+            while (index > 0 && mOffsets[index - 1] == time)
+                --index;
+        return index > 0 ? mOffsets[index - 1] : -1;
+    }
+
+    /**
+     * Get the chapters as returned natively, this array should not be modified
+     */
+    MediaPlayer.Chapter[] getNativeChapters() {
+        return mNativeChapters;
+    }
+}
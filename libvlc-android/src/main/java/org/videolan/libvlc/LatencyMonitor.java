@@ -0,0 +1,132 @@
+/*****************************************************************************
+ * LatencyMonitor.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc;
+
+import android.os.SystemClock;
+
+/**
+ * Estimate of the distance between the live edge of a stream and what is being played.
+ * <p>
+ * The estimate is the sum of two parts:
+ * <ul>
+ * <li>the buffered duration, computed from the bytes read but not yet demuxed and the demux
+ * bitrate of {@link Media.Stats}, or the configured caching when no stats are available</li>
+ * <li>the drift: how much the playback fell behind the wall clock since it started, from
+ * {@link MediaPlayer.Event#TimeChanged} events. Stalls ({@link MediaPlayer.Event#Buffering})
+ * increase it, dropping late frames to catch up decreases it.</li>
+ * </ul>
+ * This is only meaningful for live streams.
+ */
+public class LatencyMonitor {
+    /* media time jumps bigger than this are seeks, not drift */
+    private static final long SEEK_THRESHOLD_MS = 5000;
+    private static final long DEFAULT_CACHING_MS = 1000;
+
+    private long mBaseWallTime = -1;
+    private long mBaseMediaTime = -1;
+    private long mLastWallTime = -1;
+    private long mLastMediaTime = -1;
+    private long mDrift = 0;
+    private long mBufferedDuration = -1;
+    private long mCaching = DEFAULT_CACHING_MS;
+    private float mBuffering = 100f;
+
+    LatencyMonitor() {
+    }
+
+    synchronized void setCaching(long caching) {
+        mCaching = caching >= 0 ? caching : DEFAULT_CACHING_MS;
+    }
+
+    synchronized void onReset() {
+        mBaseWallTime = mBaseMediaTime = mLastWallTime = mLastMediaTime = -1;
+        mDrift = 0;
+        mBufferedDuration = -1;
+        mBuffering = 100f;
+    }
+
+    synchronized void onBuffering(float buffering) {
+        mBuffering = buffering;
+    }
+
+    synchronized void onTimeChanged(long time) {
+        final long now = SystemClock.elapsedRealtime();
+        if (mBaseWallTime < 0 || Math.abs((time - mLastMediaTime) - (now - mLastWallTime)) > SEEK_THRESHOLD_MS) {
+            mBaseWallTime = now;
+            mBaseMediaTime = time;
+        }
+        mLastWallTime = now;
+        mLastMediaTime = time;
+        mDrift = (now - mBaseWallTime) - (time - mBaseMediaTime);
+        if (mDrift < 0) {
+            /* caught up further than the start latency: this is the new reference */
+            mBaseWallTime = now;
+            mBaseMediaTime = time;
+            mDrift = 0;
+        }
+    }
+
+    synchronized void onStats(Media.Stats stats) {
+        if (stats == null || stats.demuxBitrate <= 0f) {
+            mBufferedDuration = -1;
+            return;
+        }
+        final long pending = Math.max(0, (long) stats.readBytes - stats.demuxReadBytes);
+        /* bitrates are in bytes per µs */
+        mBufferedDuration = (long) (pending / (stats.demuxBitrate * 1000f));
+    }
+
+    /**
+     * Get the estimated latency to the live edge
+     *
+     * @return latency in ms, or -1 if the playback didn't start
+     */
+    public synchronized long getLatency() {
+        if (mBaseWallTime < 0)
+            return -1;
+        return (mBufferedDuration >= 0 ? mBufferedDuration : mCaching) + mDrift;
+    }
+
+    /**
+     * Get how much the playback fell behind the wall clock since it started
+     *
+     * @return drift in ms
+     */
+    public synchronized long getDrift() {
+        return mDrift;
+    }
+
+    /**
+     * Get the buffered duration computed from the last stats
+     *
+     * @return duration in ms, or -1 if unknown
+     */
+    public synchronized long getBufferedDuration() {
+        return mBufferedDuration;
+    }
+
+    /**
+     * Get the last buffering percentage
+     */
+    public synchronized float getBuffering() {
+        return mBuffering;
+    }
+}
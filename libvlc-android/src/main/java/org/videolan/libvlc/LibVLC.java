@@ -21,17 +21,27 @@
 package org.videolan.libvlc;
 
 import android.content.Context;
+import android.os.SystemClock;
 import android.util.Log;
 
+import org.videolan.libvlc.util.DecoderTuning;
 import org.videolan.libvlc.util.HWDecoderUtil;
+import org.videolan.libvlc.util.MediaCodecCapabilities;
+import org.videolan.libvlc.util.VLCUtil;
 
 import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 @SuppressWarnings("unused, JniMissingFunction")
 public class LibVLC extends VLCObject<LibVLC.Event> {
     private static final String TAG = "VLC/LibVLC";
     private static boolean sLoaded = false;
+    private static volatile StartupTrace sLastStartupTrace = null;
     final Context mAppContext;
+    private final StartupTrace mStartupTrace;
+    private MemoryGovernor mMemoryGovernor = null;
 
     /**
      * Create a LibVLC withs options
@@ -39,9 +49,77 @@ public class LibVLC extends VLCObject<LibVLC.Event> {
      * @param options
      */
     public LibVLC(Context context, ArrayList<String> options) {
+        this(context, options, false, new StartupTrace());
+    }
+
+    /**
+     * Create a LibVLC
+     */
+    public LibVLC(Context context) {
+        this(context, null);
+    }
+
+    private LibVLC(Context context, ArrayList<String> options, boolean resolved, StartupTrace trace) {
         mAppContext = context.getApplicationContext();
-        loadLibraries();
+        mStartupTrace = trace;
+        MediaCodecCapabilities.warmUp(mAppContext);
+        if (!trace.isDone(StartupTrace.LIBRARIES)) {
+            trace.begin(StartupTrace.LIBRARIES);
+            loadLibraries();
+            trace.end(StartupTrace.LIBRARIES);
+        }
+
+        if (!resolved) {
+            trace.begin(StartupTrace.OPTIONS);
+            options = resolveOptions(options);
+            trace.end(StartupTrace.OPTIONS);
+        }
+
+        trace.begin(StartupTrace.NATIVE_NEW);
+        final long begin = NativeTrace.begin();
+        nativeNew(options.toArray(new String[options.size()]), context.getDir("vlc", Context.MODE_PRIVATE).getAbsolutePath());
+        NativeTrace.end(NativeTrace.LIBVLC_NEW, begin);
+        trace.end(StartupTrace.NATIVE_NEW);
+        sLastStartupTrace = trace;
+        Log.d(TAG, "startup: " + trace);
+    }
+
+    /**
+     * Create a LibVLC in the background.
+     * <p>
+     * Native libraries are loaded while options are resolved, then the instance is created on a
+     * background thread, so that the caller can go on with its own initialization.
+     *
+     * @return a Future giving the new LibVLC, that should be released by the caller
+     */
+    public static Future<LibVLC> warmUpAsync(Context context, ArrayList<String> options) {
+        final Context appContext = context.getApplicationContext();
+        final ArrayList<String> optionsCopy = options != null ? new ArrayList<String>(options) : null;
+        final StartupTrace trace = new StartupTrace();
+        final FutureTask<Void> libraries = new FutureTask<Void>(new Runnable() {
+            @Override
+            public void run() {
+                trace.begin(StartupTrace.LIBRARIES);
+                loadLibraries();
+                trace.end(StartupTrace.LIBRARIES);
+            }
+        }, null);
+        final FutureTask<LibVLC> task = new FutureTask<LibVLC>(new Callable<LibVLC>() {
+            @Override
+            public LibVLC call() throws Exception {
+                trace.begin(StartupTrace.OPTIONS);
+                final ArrayList<String> resolved = resolveOptions(optionsCopy);
+                trace.end(StartupTrace.OPTIONS);
+                libraries.get();
+                return new LibVLC(appContext, resolved, true, trace);
+            }
+        });
+        new Thread(libraries, "VLC/LoadLibraries").start();
+        new Thread(task, "VLC/WarmUp").start();
+        return task;
+    }
 
+    private static ArrayList<String> resolveOptions(ArrayList<String> options) {
         if (options == null)
             options = new ArrayList<String>();
         boolean setAout = true, setChroma = true;
@@ -66,17 +144,26 @@ public class LibVLC extends VLCObject<LibVLC.Event> {
             }
             if (setChroma) {
                 options.add("--android-display-chroma");
-                options.add("RV16");
+                options.add(DecoderTuning.getDisplayChroma(VLCUtil.getMachineSpecs()));
             }
         }
-        nativeNew(options.toArray(new String[options.size()]), context.getDir("vlc", Context.MODE_PRIVATE).getAbsolutePath());
+        return options;
     }
 
     /**
-     * Create a LibVLC
+     * Get the phase timings of the creation of this instance
      */
-    public LibVLC(Context context) {
-        this(context, null);
+    public StartupTrace getStartupTrace() {
+        return mStartupTrace;
+    }
+
+    /**
+     * Get the phase timings of the last created instance
+     *
+     * @return the trace, or null if no LibVLC was created yet
+     */
+    public static StartupTrace getLastStartupTrace() {
+        return sLastStartupTrace;
     }
 
     public static synchronized void loadLibraries() {
@@ -125,9 +212,27 @@ public class LibVLC extends VLCObject<LibVLC.Event> {
         return null;
     }
 
+    /**
+     * Get the memory governor of this instance, registered to the application memory callbacks
+     * until this instance is released
+     */
+    public synchronized MemoryGovernor getMemoryGovernor() {
+        if (isReleased())
+            throw new IllegalStateException("LibVLC is released");
+        if (mMemoryGovernor == null) {
+            mMemoryGovernor = new MemoryGovernor();
+            mMemoryGovernor.register(mAppContext);
+        }
+        return mMemoryGovernor;
+    }
+
     @Override
     protected void onReleaseNative() {
+        if (mMemoryGovernor != null)
+            mMemoryGovernor.unregister();
+        final long begin = NativeTrace.begin();
         nativeRelease();
+        NativeTrace.end(NativeTrace.LIBVLC_RELEASE, begin);
     }
 
     /**
@@ -138,7 +243,9 @@ public class LibVLC extends VLCObject<LibVLC.Event> {
      * @param http HTTP User Agent, e.g. "FooBar/1.2.3 Python/2.6.0"
      */
     public void setUserAgent(String name, String http) {
+        final long begin = NativeTrace.begin();
         nativeSetUserAgent(name, http);
+        NativeTrace.end(NativeTrace.LIBVLC_SET_USER_AGENT, begin);
     }
 
     /* JNI */
@@ -153,4 +260,71 @@ public class LibVLC extends VLCObject<LibVLC.Event> {
             super(type);
         }
     }
+
+    /**
+     * Timings of the phases of a LibVLC creation
+     */
+    public static class StartupTrace {
+        /**
+         * Loading of the native libraries
+         */
+        public static final int LIBRARIES = 0;
+        /**
+         * Resolution of the default options
+         */
+        public static final int OPTIONS = 1;
+        /**
+         * Creation of the native instance, including the plugin cache loading
+         */
+        public static final int NATIVE_NEW = 2;
+        private static final int PHASES = 3;
+        private static final String[] NAMES = {"libraries", "options", "nativeNew"};
+
+        private final long mCreated = SystemClock.elapsedRealtime();
+        private final long[] mStart = new long[PHASES];
+        private final long[] mEnd = new long[PHASES];
+
+        private StartupTrace() {
+        }
+
+        private synchronized void begin(int phase) {
+            mStart[phase] = SystemClock.elapsedRealtime();
+        }
+
+        private synchronized void end(int phase) {
+            mEnd[phase] = SystemClock.elapsedRealtime();
+        }
+
+        private synchronized boolean isDone(int phase) {
+            return mEnd[phase] != 0;
+        }
+
+        /**
+         * Get the duration of a phase
+         *
+         * @param phase {@link #LIBRARIES}, {@link #OPTIONS} or {@link #NATIVE_NEW}
+         * @return duration in ms, or -1 if the phase is not over
+         */
+        public synchronized long getDuration(int phase) {
+            return mEnd[phase] != 0 ? mEnd[phase] - mStart[phase] : -1;
+        }
+
+        /**
+         * Get the time from the creation request to the end of the last phase. When phases run
+         * in parallel, this is less than the sum of their durations.
+         *
+         * @return duration in ms, or -1 if the creation is not over
+         */
+        public synchronized long getTotalDuration() {
+            return mEnd[NATIVE_NEW] != 0 ? mEnd[NATIVE_NEW] - mCreated : -1;
+        }
+
+        @Override
+        public synchronized String toString() {
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < PHASES; ++i)
+                sb.append(NAMES[i]).append(": ").append(getDuration(i)).append(" ms, ");
+            return sb.append("total: ").append(getTotalDuration()).append(" ms").toString();
+        }
+    }
 }
@@ -26,14 +26,23 @@ import android.net.Uri;
 import androidx.annotation.Nullable;
 
 import org.videolan.libvlc.util.AndroidUtil;
+import org.videolan.libvlc.util.DecoderOutcomeStore;
+import org.videolan.libvlc.util.DecoderTuning;
 import org.videolan.libvlc.util.HWDecoderUtil;
+import org.videolan.libvlc.util.MediaCodecCapabilities;
 import org.videolan.libvlc.util.VLCUtil;
 
 import java.io.FileDescriptor;
+import java.util.ArrayList;
+import java.util.List;
 
 @SuppressWarnings("unused, JniMissingFunction")
 public class Media extends VLCObject<Media.Event> {
     private final static String TAG = "LibVLC/Media";
+    /**
+     * Default network caching of the low latency profile, in ms
+     */
+    public static final int LOW_LATENCY_CACHING = 150;
     private static final int PARSE_STATUS_INIT = 0x00;
     private static final int PARSE_STATUS_PARSING = 0x01;
     private static final int PARSE_STATUS_PARSED = 0x02;
@@ -48,6 +57,11 @@ public class Media extends VLCObject<Media.Event> {
     private boolean mCodecOptionSet = false;
     private boolean mFileCachingSet = false;
     private boolean mNetworkCachingSet = false;
+    private boolean mDecoderTuningSet = false;
+    private boolean mHurryUpSet = false;
+    private boolean mHWDecoderRequested = false;
+    private boolean mLowLatency = false;
+    private int mNetworkCaching = -1;
 
     /**
      * Create a Media from libVLC and a local path starting with '/'.
@@ -57,8 +71,10 @@ public class Media extends VLCObject<Media.Event> {
      */
     public Media(LibVLC libVLC, String path) {
         super(libVLC);
+        final long begin = NativeTrace.begin();
         nativeNewFromPath(libVLC, path);
-        mUri = VLCUtil.UriFromMrl(nativeGetMrl());
+        NativeTrace.end(NativeTrace.MEDIA_NEW, begin);
+        mUri = VLCUtil.UriFromMrl(getMrl());
     }
 
     /**
@@ -69,7 +85,9 @@ public class Media extends VLCObject<Media.Event> {
      */
     public Media(LibVLC libVLC, Uri uri) {
         super(libVLC);
+        final long begin = NativeTrace.begin();
         nativeNewFromLocation(libVLC, VLCUtil.encodeVLCUri(uri));
+        NativeTrace.end(NativeTrace.MEDIA_NEW, begin);
         mUri = uri;
     }
 
@@ -81,8 +99,10 @@ public class Media extends VLCObject<Media.Event> {
      */
     public Media(LibVLC libVLC, FileDescriptor fd) {
         super(libVLC);
+        final long begin = NativeTrace.begin();
         nativeNewFromFd(libVLC, fd);
-        mUri = VLCUtil.UriFromMrl(nativeGetMrl());
+        NativeTrace.end(NativeTrace.MEDIA_NEW, begin);
+        mUri = VLCUtil.UriFromMrl(getMrl());
     }
 
     /**
@@ -95,8 +115,10 @@ public class Media extends VLCObject<Media.Event> {
         super(libVLC);
         long offset = afd.getStartOffset();
         long length = afd.getLength();
+        final long begin = NativeTrace.begin();
         nativeNewFromFdWithOffsetLength(libVLC, afd.getFileDescriptor(), offset, length);
-        mUri = VLCUtil.UriFromMrl(nativeGetMrl());
+        NativeTrace.end(NativeTrace.MEDIA_NEW, begin);
+        mUri = VLCUtil.UriFromMrl(getMrl());
     }
 
     /**
@@ -109,8 +131,17 @@ public class Media extends VLCObject<Media.Event> {
             throw new IllegalArgumentException("MediaList is null or released");
         if (!ml.isLocked())
             throw new IllegalStateException("MediaList should be locked");
+        final long begin = NativeTrace.begin();
         nativeNewFromMediaList(ml, index);
-        mUri = VLCUtil.UriFromMrl(nativeGetMrl());
+        NativeTrace.end(NativeTrace.MEDIA_NEW, begin);
+        mUri = VLCUtil.UriFromMrl(getMrl());
+    }
+
+    private String getMrl() {
+        final long begin = NativeTrace.begin();
+        final String ret = nativeGetMrl();
+        NativeTrace.end(NativeTrace.MEDIA_GET_MRL, begin);
+        return ret;
     }
 
     @SuppressWarnings("unused") /* Used from JNI */
@@ -223,7 +254,9 @@ public class Media extends VLCObject<Media.Event> {
             if (isReleased())
                 return 0;
         }
+        final long begin = NativeTrace.begin();
         final long duration = nativeGetDuration();
+        NativeTrace.end(NativeTrace.MEDIA_GET_DURATION, begin);
         synchronized (this) {
             mDuration = duration;
             return mDuration;
@@ -242,7 +275,9 @@ public class Media extends VLCObject<Media.Event> {
             if (isReleased())
                 return State.Error;
         }
+        final long begin = NativeTrace.begin();
         final int state = nativeGetState();
+        NativeTrace.end(NativeTrace.MEDIA_GET_STATE, begin);
         synchronized (this) {
             mState = state;
             return mState;
@@ -269,6 +304,29 @@ public class Media extends VLCObject<Media.Event> {
         }
     }
 
+    /**
+     * Drop the cached metas and tracks, they are read again natively when needed
+     *
+     * @return estimated number of bytes freed
+     */
+    synchronized long trimCache() {
+        /* the cache is all that is left of a released Media */
+        if (isReleased())
+            return 0;
+        long freed = 0;
+        for (int i = 0; i < mNativeMetas.length; ++i) {
+            if (mNativeMetas[i] != null) {
+                freed += 40 + 2L * mNativeMetas[i].length();
+                mNativeMetas[i] = null;
+            }
+        }
+        if (mNativeTracks != null) {
+            freed += 200L * mNativeTracks.length;
+            mNativeTracks = null;
+        }
+        return freed;
+    }
+
     private synchronized void postParse() {
         // fetch if parsed and not fetched
         if ((mParseStatus & PARSE_STATUS_PARSED) != 0)
@@ -295,7 +353,12 @@ public class Media extends VLCObject<Media.Event> {
                 parse = true;
             }
         }
-        if (parse && nativeParse(flags)) {
+        if (!parse)
+            return false;
+        final long begin = NativeTrace.begin();
+        final boolean parsed = nativeParse(flags);
+        NativeTrace.end(NativeTrace.MEDIA_PARSE, begin);
+        if (parsed) {
             postParse();
             return true;
         } else
@@ -331,7 +394,12 @@ public class Media extends VLCObject<Media.Event> {
                 parse = true;
             }
         }
-        return parse && nativeParseAsync(flags, timeout);
+        if (!parse)
+            return false;
+        final long begin = NativeTrace.begin();
+        final boolean ret = nativeParseAsync(flags, timeout);
+        NativeTrace.end(NativeTrace.MEDIA_PARSE_ASYNC, begin);
+        return ret;
     }
 
     public boolean parseAsync(int flags) {
@@ -366,7 +434,9 @@ public class Media extends VLCObject<Media.Event> {
             if (isReleased())
                 return Type.Unknown;
         }
+        final long begin = NativeTrace.begin();
         final int type = nativeGetType();
+        NativeTrace.end(NativeTrace.MEDIA_GET_TYPE, begin);
         synchronized (this) {
             mType = type;
             return mType;
@@ -380,7 +450,9 @@ public class Media extends VLCObject<Media.Event> {
             if (isReleased())
                 return null;
         }
+        final long begin = NativeTrace.begin();
         final Track[] tracks = nativeGetTracks();
+        NativeTrace.end(NativeTrace.MEDIA_GET_TRACKS, begin);
         synchronized (this) {
             mNativeTracks = tracks;
             return mNativeTracks;
@@ -427,7 +499,9 @@ public class Media extends VLCObject<Media.Event> {
                 return null;
         }
 
+        final long begin = NativeTrace.begin();
         final String meta = nativeGetMeta(id);
+        NativeTrace.end(NativeTrace.MEDIA_GET_META, begin);
         synchronized (this) {
             mNativeMetas[id] = meta;
             return meta;
@@ -437,6 +511,10 @@ public class Media extends VLCObject<Media.Event> {
     /**
      * Add or remove hw acceleration media options
      *
+     * If the media is parsed, hw decoding is skipped for video tracks that recently failed to be
+     * hw decoded on this device, see {@link DecoderOutcomeStore}, and MediaCodec is not used for
+     * video tracks that no hw decoder supports, see {@link MediaCodecCapabilities}.
+     *
      * @param enabled if true, hw decoder will be used
      * @param force   force hw acceleration even for unknown devices
      */
@@ -449,8 +527,24 @@ public class Media extends VLCObject<Media.Event> {
         if (decoder == HWDecoderUtil.Decoder.UNKNOWN && force)
             decoder = HWDecoderUtil.Decoder.ALL;
 
-        if (decoder == HWDecoderUtil.Decoder.NONE || decoder == HWDecoderUtil.Decoder.UNKNOWN) {
+        /* This codec failed with hw decoding on this device */
+        if (decoder != HWDecoderUtil.Decoder.NONE && decoder != HWDecoderUtil.Decoder.UNKNOWN
+                && !isHWDecodingAllowed())
+            decoder = HWDecoderUtil.Decoder.NONE;
+
+        /* Don't open MediaCodec if no hw decoder of the device supports the video track */
+        final boolean useMediaCodec = (decoder == HWDecoderUtil.Decoder.MEDIACODEC
+                || decoder == HWDecoderUtil.Decoder.ALL) && isMediaCodecSupported();
+        /* iomx decoders have a very high latency, see below */
+        final boolean useOmx = force && !isLowLatency() && (decoder == HWDecoderUtil.Decoder.OMX
+                || decoder == HWDecoderUtil.Decoder.ALL);
+
+        synchronized (this) {
+            mHWDecoderRequested = useMediaCodec || useOmx;
+        }
+        if (!useMediaCodec && !useOmx) {
             addOption(":codec=all");
+            applyDecoderTuning();
             return;
         }
 
@@ -463,19 +557,152 @@ public class Media extends VLCObject<Media.Event> {
          * for 320x170 H.264, a few packets less on higher resolutions.
          * On Nexus S, the decoder latency seems to be about 7 packets.
          */
-        if (!mFileCachingSet)
-            addOption(":file-caching=1500");
-        if (!mNetworkCachingSet)
-            addOption(":network-caching=1500");
+        if (!isLowLatency()) {
+            if (!mFileCachingSet)
+                addOption(":file-caching=1500");
+            if (!mNetworkCachingSet)
+                addOption(":network-caching=1500");
+        }
 
         final StringBuilder sb = new StringBuilder(":codec=");
-        if (decoder == HWDecoderUtil.Decoder.MEDIACODEC || decoder == HWDecoderUtil.Decoder.ALL)
+        if (useMediaCodec)
             sb.append(getMediaCodecModule()).append(",");
-        if (force && (decoder == HWDecoderUtil.Decoder.OMX || decoder == HWDecoderUtil.Decoder.ALL))
+        if (useOmx)
             sb.append("iomx,");
         sb.append("all");
 
         addOption(sb.toString());
+        /* for the software fallback */
+        applyDecoderTuning();
+    }
+
+    /**
+     * Set the software decoding options from the {@link VLCUtil.MachineSpecs}, unless they were
+     * set by the application
+     */
+    private void applyDecoderTuning() {
+        /* no native call from here: only use the tracks already fetched, a 1080p video is assumed
+         * otherwise */
+        final Track[] tracks;
+        final boolean hurryUpSet;
+        synchronized (this) {
+            if (mDecoderTuningSet)
+                return;
+            tracks = mNativeTracks;
+            /* set by the application or by the low latency profile */
+            hurryUpSet = mHurryUpSet || mLowLatency;
+        }
+        final VideoTrack track = findVideoTrack(tracks);
+        if (tracks != null && track == null)
+            return;
+        final DecoderTuning tuning = DecoderTuning.get(VLCUtil.getMachineSpecs(), track);
+        if (tuning == null)
+            return;
+        for (String option : tuning.getOptions(!hurryUpSet))
+            addOption(option);
+    }
+
+    private boolean isHWDecodingAllowed() {
+        if (mLibVLC == null || !isParsed())
+            return true;
+        final VideoTrack track = getVideoTrack();
+        return track == null || DecoderOutcomeStore.getInstance(mLibVLC.mAppContext)
+                .isHardwareDecodingAllowed(DecoderOutcomeStore.getKey(track));
+    }
+
+    private boolean isMediaCodecSupported() {
+        if (mLibVLC == null || !isParsed())
+            return true;
+        final VideoTrack track = getVideoTrack();
+        if (track == null)
+            return true;
+        /* don't wait for the probe, started by LibVLC, and assume support until it's done */
+        final MediaCodecCapabilities capabilities = MediaCodecCapabilities.peekInstance();
+        return capabilities == null || capabilities.isSupported(track);
+    }
+
+    /**
+     * @return true if a hw decoder chain was set by {@link #setHWDecoderEnabled(boolean, boolean)}
+     */
+    synchronized boolean isHWDecoderRequested() {
+        return mHWDecoderRequested;
+    }
+
+    /**
+     * @return the first video track, or null if the media has no known video track
+     */
+    @Nullable
+    VideoTrack getVideoTrack() {
+        return findVideoTrack(getTracks());
+    }
+
+    private static VideoTrack findVideoTrack(Track[] tracks) {
+        if (tracks == null)
+            return null;
+        for (Track track : tracks) {
+            if (track instanceof VideoTrack)
+                return (VideoTrack) track;
+        }
+        return null;
+    }
+
+    /**
+     * Set options for live streams (RTSP/RTP cameras...) where latency matters more than smoothness:
+     * small network and live caching, no clock jitter compensation nor clock synchro, and late
+     * frames are dropped. Caching isn't increased anymore by
+     * {@link #setHWDecoderEnabled(boolean, boolean)}, and OMX decoders are not used.
+     * <p>
+     * This should be called before {@link #setHWDecoderEnabled(boolean, boolean)}.
+     *
+     * @param caching network caching in ms, or -1 for {@link #LOW_LATENCY_CACHING}
+     */
+    public void setLowLatencyProfile(int caching) {
+        synchronized (this) {
+            mLowLatency = true;
+        }
+        for (String option : getLowLatencyOptions(caching))
+            addOption(option);
+    }
+
+    /**
+     * Get the options set by {@link #setLowLatencyProfile(int)}
+     *
+     * @param caching network caching in ms, or -1 for {@link #LOW_LATENCY_CACHING}
+     */
+    static List<String> getLowLatencyOptions(int caching) {
+        if (caching < 0)
+            caching = LOW_LATENCY_CACHING;
+        final ArrayList<String> options = new ArrayList<>();
+        options.add(":network-caching=" + caching);
+        options.add(":live-caching=" + caching);
+        options.add(":clock-jitter=0");
+        options.add(":clock-synchro=0");
+        options.add(":drop-late-frames");
+        options.add(":skip-frames");
+        options.add(":avcodec-hurry-up");
+        return options;
+    }
+
+    /**
+     * @return true if the option enables or disables the avcodec hurry-up
+     */
+    static boolean isHurryUpOption(String option) {
+        return option.equals(":avcodec-hurry-up") || option.equals(":no-avcodec-hurry-up")
+                || option.startsWith(":avcodec-hurry-up=");
+    }
+
+    /**
+     * @return true if {@link #setLowLatencyProfile(int)} was called
+     */
+    public synchronized boolean isLowLatency() {
+        return mLowLatency;
+    }
+
+    /**
+     * @return the network caching set by option, or -1
+     */
+    synchronized int getNetworkCaching() {
+        return mNetworkCaching;
     }
 
     /**
@@ -505,12 +732,24 @@ public class Media extends VLCObject<Media.Event> {
         synchronized (this) {
             if (!mCodecOptionSet && option.startsWith(":codec="))
                 mCodecOptionSet = true;
-            if (!mNetworkCachingSet && option.startsWith(":network-caching="))
+            if (option.startsWith(":avcodec-threads=") || option.startsWith(":avcodec-skiploopfilter=")
+                    || option.startsWith(":avcodec-skip-frame="))
+                mDecoderTuningSet = true;
+            if (isHurryUpOption(option))
+                mHurryUpSet = true;
+            if (option.startsWith(":network-caching=")) {
                 mNetworkCachingSet = true;
+                try {
+                    mNetworkCaching = Integer.parseInt(option.substring(17).trim());
+                } catch (NumberFormatException ignored) {
+                }
+            }
             if (!mFileCachingSet && option.startsWith(":file-caching="))
                 mFileCachingSet = true;
         }
+        final long begin = NativeTrace.begin();
         nativeAddOption(option);
+        NativeTrace.end(NativeTrace.MEDIA_ADD_OPTION, begin);
     }
 
     /**
@@ -523,14 +762,18 @@ public class Media extends VLCObject<Media.Event> {
      * before the media is played (via {@link MediaPlayer#play()})
      */
     public void addSlave(Slave slave) {
+        final long begin = NativeTrace.begin();
         nativeAddSlave(slave.type, slave.priority, slave.uri);
+        NativeTrace.end(NativeTrace.MEDIA_ADD_SLAVE, begin);
     }
 
     /**
      * Clear all slaves previously added by {@link #addSlave(Slave)} or internally.
      */
     public void clearSlaves() {
+        final long begin = NativeTrace.begin();
         nativeClearSlaves();
+        NativeTrace.end(NativeTrace.MEDIA_CLEAR_SLAVES, begin);
     }
 
     /**
@@ -542,7 +785,10 @@ public class Media extends VLCObject<Media.Event> {
      */
     @Nullable
     public Slave[] getSlaves() {
-        return nativeGetSlaves();
+        final long begin = NativeTrace.begin();
+        final Slave[] ret = nativeGetSlaves();
+        NativeTrace.end(NativeTrace.MEDIA_GET_SLAVES, begin);
+        return ret;
     }
 
     /**
@@ -550,14 +796,24 @@ public class Media extends VLCObject<Media.Event> {
      */
     @Nullable
     public Stats getStats() {
-        return nativeGetStats();
+        final long begin = NativeTrace.begin();
+        final Stats ret = nativeGetStats();
+        NativeTrace.end(NativeTrace.MEDIA_GET_STATS, begin);
+        return ret;
+    }
+
+    @Override
+    boolean isReapable() {
+        return true;
     }
 
     @Override
     protected void onReleaseNative() {
         if (mSubItems != null)
             mSubItems.release();
+        final long begin = NativeTrace.begin();
         nativeRelease();
+        NativeTrace.end(NativeTrace.MEDIA_RELEASE, begin);
     }
 
     /* JNI */
@@ -23,7 +23,7 @@ package org.videolan.libvlc;
 import androidx.annotation.Nullable;
 
 @SuppressWarnings("unused, JniMissingFunction")
-public class MediaDiscoverer extends VLCObject<MediaDiscoverer.Event> {
+public class MediaDiscoverer extends VLCObject<MediaDiscoverer.Event> implements MemoryGovernor.Sheddable {
     private final static String TAG = "LibVLC/MediaDiscoverer";
     private MediaList mMediaList = null;
 
@@ -76,6 +76,22 @@ public class MediaDiscoverer extends VLCObject<MediaDiscoverer.Event> {
         nativeStop();
     }
 
+    /**
+     * Stop the discovery at {@link MemoryGovernor#SHED_ALL}
+     */
+    @Override
+    public long shed(int level) {
+        /* hold a reference, so that the discoverer can't be released while stopping */
+        if (level >= MemoryGovernor.SHED_ALL && retain()) {
+            try {
+                stop();
+            } finally {
+                release();
+            }
+        }
+        return 0;
+    }
+
     public void setEventListener(EventListener listener) {
         super.setEventListener(listener);
     }
@@ -111,6 +127,11 @@ public class MediaDiscoverer extends VLCObject<MediaDiscoverer.Event> {
         }
     }
 
+    @Override
+    boolean isReapable() {
+        return true;
+    }
+
     @Override
     protected void onReleaseNative() {
         if (mMediaList != null)
@@ -23,12 +23,15 @@ package org.videolan.libvlc;
 import android.os.Handler;
 import android.util.SparseArray;
 
+import java.util.concurrent.CopyOnWriteArrayList;
+
 @SuppressWarnings("unused, JniMissingFunction")
-public class MediaList extends VLCObject<MediaList.Event> {
+public class MediaList extends VLCObject<MediaList.Event> implements MemoryGovernor.Sheddable {
     private final static String TAG = "LibVLC/MediaList";
     private final SparseArray<Media> mMediaArray = new SparseArray<Media>();
     private int mCount = 0;
     private boolean mLocked = false;
+    private final CopyOnWriteArrayList<EventObserver> mEventObservers = new CopyOnWriteArrayList<>();
     /**
      * Create a MediaList from libVLC
      *
@@ -36,7 +39,9 @@ public class MediaList extends VLCObject<MediaList.Event> {
      */
     public MediaList(LibVLC libVLC) {
         super(libVLC);
+        final long begin = NativeTrace.begin();
         nativeNewFromLibVlc(libVLC);
+        NativeTrace.end(NativeTrace.MEDIA_LIST_NEW, begin);
         init();
     }
     /**
@@ -44,7 +49,9 @@ public class MediaList extends VLCObject<MediaList.Event> {
      */
     protected MediaList(MediaDiscoverer md) {
         super(md);
+        final long begin = NativeTrace.begin();
         nativeNewFromMediaDiscoverer(md);
+        NativeTrace.end(NativeTrace.MEDIA_LIST_NEW, begin);
         init();
     }
 
@@ -53,13 +60,17 @@ public class MediaList extends VLCObject<MediaList.Event> {
      */
     protected MediaList(Media m) {
         super(m);
+        final long begin = NativeTrace.begin();
         nativeNewFromMedia(m);
+        NativeTrace.end(NativeTrace.MEDIA_LIST_NEW, begin);
         init();
     }
 
     private void init() {
         lock();
+        final long begin = NativeTrace.begin();
         mCount = nativeGetCount();
+        NativeTrace.end(NativeTrace.MEDIA_LIST_GET_COUNT, begin);
         for (int i = 0; i < mCount; ++i)
             mMediaArray.put(i, new Media(this, i));
         unlock();
@@ -117,9 +128,47 @@ public class MediaList extends VLCObject<MediaList.Event> {
                 break;
         }
         mLocked = false;
+        if (event != null && event.index != -1) {
+            for (EventObserver observer : mEventObservers)
+                observer.onItemEvent(eventType, event.index);
+        }
         return event;
     }
 
+    /**
+     * Internal observer of the list changes, called from the event thread while the list is
+     * locked: it must not call back into the list.
+     */
+    interface EventObserver {
+        /**
+         * @param eventType {@link Event#ItemAdded} or {@link Event#ItemDeleted}
+         * @param index     index of the item
+         */
+        void onItemEvent(int eventType, int index);
+    }
+
+    void addEventObserver(EventObserver observer) {
+        mEventObservers.addIfAbsent(observer);
+    }
+
+    void removeEventObserver(EventObserver observer) {
+        mEventObservers.remove(observer);
+    }
+
+    /**
+     * Drop the cached metas and tracks of the Media of this list
+     */
+    @Override
+    public synchronized long shed(int level) {
+        long freed = 0;
+        for (int i = 0; i < mMediaArray.size(); ++i) {
+            final Media media = mMediaArray.valueAt(i);
+            if (media != null)
+                freed += media.trimCache();
+        }
+        return freed;
+    }
+
     /**
      * Get the number of Media.
      */
@@ -141,6 +190,11 @@ public class MediaList extends VLCObject<MediaList.Event> {
         return media;
     }
 
+    @Override
+    boolean isReapable() {
+        return true;
+    }
+
     @Override
     public void onReleaseNative() {
         for (int i = 0; i < mMediaArray.size(); ++i) {
@@ -149,21 +203,27 @@ public class MediaList extends VLCObject<MediaList.Event> {
                 media.release();
         }
 
+        final long begin = NativeTrace.begin();
         nativeRelease();
+        NativeTrace.end(NativeTrace.MEDIA_LIST_RELEASE, begin);
     }
 
     private synchronized void lock() {
         if (mLocked)
             throw new IllegalStateException("already locked");
         mLocked = true;
+        final long begin = NativeTrace.begin();
         nativeLock();
+        NativeTrace.end(NativeTrace.MEDIA_LIST_LOCK, begin);
     }
 
     private synchronized void unlock() {
         if (!mLocked)
             throw new IllegalStateException("not locked");
         mLocked = false;
+        final long begin = NativeTrace.begin();
         nativeUnlock();
+        NativeTrace.end(NativeTrace.MEDIA_LIST_UNLOCK, begin);
     }
 
     protected synchronized boolean isLocked() {
@@ -0,0 +1,593 @@
+/*****************************************************************************
+ * MediaListPlayer.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Random;
+
+/**
+ * Gapless player of a {@link MediaList}.
+ * <p>
+ * When an item starts, the Media of the next one is created and parsed in the background. If a
+ * preload player is enabled, it is also opened on a second {@link MediaPlayer} with
+ * ":start-paused", so that its input is opened and buffered while the current item plays. At the
+ * end of the current item (or a configurable time before it, the current item then plays its
+ * tail until its end), the preloaded player is simply resumed, instead of tearing down and
+ * opening a new input. The players are swapped on each handoff: video views must follow
+ * {@link Listener#onPlayerChanged(MediaPlayer)}.
+ * <p>
+ * Items failing with {@link MediaPlayer.Event#EncounteredError} are skipped, and the play order
+ * follows the items added to and deleted from the MediaList.
+ * <p>
+ * The gap between the end of an item and the first time update of the next one is measured at
+ * each handoff.
+ * <p>
+ * This class must be used from the main thread.
+ */
+public class MediaListPlayer {
+    public static final int REPEAT_NONE = 0;
+    public static final int REPEAT_ONE = 1;
+    public static final int REPEAT_ALL = 2;
+
+    private final LibVLC mLibVLC;
+    private final MediaList mMediaList;
+    private final MediaPlayer[] mPlayers;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Random mRandom = new Random();
+    private final MediaList.EventObserver mListObserver = new MediaList.EventObserver() {
+        @Override
+        public void onItemEvent(final int eventType, final int index) {
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    onListChanged(eventType, index);
+                }
+            });
+        }
+    };
+    private Listener mListener = null;
+
+    private int mCurrent = 0;
+    private int[] mOrder = new int[0];
+    private int mPosition = -1;
+    /* the current item was deleted from the list, mPosition is the one that followed it */
+    private boolean mCurrentDeleted = false;
+    private int mRepeatMode = REPEAT_NONE;
+    private boolean mShuffle = false;
+    private long mHandoffAdvance = 0;
+    /* list index of the item opened on the preload player */
+    private int mPreloadedIndex = -1;
+    /* parsed Media of the next item when it's not preloaded */
+    private Media mNextMedia = null;
+    private int mNextIndex = -1;
+    /* previous player playing its tail after an early handoff */
+    private MediaPlayer mDraining = null;
+    private int mErrors = 0;
+    private boolean mHandingOff = false;
+    private long mHandoffStart = -1;
+    private long mLastGap = -1;
+    private boolean mReleased = false;
+
+    /**
+     * Listener notified from the main thread
+     */
+    public interface Listener {
+        /**
+         * The player in use changed, video views should be attached to it
+         */
+        void onPlayerChanged(MediaPlayer player);
+
+        /**
+         * A new item started
+         *
+         * @param index index of the item in the MediaList
+         * @param gap   measured gap with the previous item in ms, or -1
+         */
+        void onItemChanged(int index, long gap);
+
+        /**
+         * The end of the list was reached
+         */
+        void onEndReached();
+    }
+
+    /**
+     * @param libVLC    a valid LibVLC
+     * @param mediaList the list to play, retained until {@link #release()}
+     * @param preload   true to pre-buffer the next item on a second MediaPlayer
+     */
+    @MainThread
+    public MediaListPlayer(@NonNull LibVLC libVLC, @NonNull MediaList mediaList, boolean preload) {
+        if (!mediaList.retain())
+            throw new IllegalArgumentException("MediaList is released");
+        mLibVLC = libVLC;
+        mMediaList = mediaList;
+        mMediaList.addEventObserver(mListObserver);
+        mPlayers = new MediaPlayer[preload ? 2 : 1];
+        for (int i = 0; i < mPlayers.length; ++i) {
+            final MediaPlayer player = new MediaPlayer(libVLC);
+            player.addEventObserver(new Observer(player));
+            mPlayers[i] = player;
+        }
+    }
+
+    @MainThread
+    public void setListener(@Nullable Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Get the player of the current item
+     */
+    @NonNull
+    @MainThread
+    public MediaPlayer getMediaPlayer() {
+        return mPlayers[mCurrent];
+    }
+
+    /**
+     * @param mode {@link #REPEAT_NONE}, {@link #REPEAT_ONE} or {@link #REPEAT_ALL}
+     */
+    @MainThread
+    public void setRepeatMode(int mode) {
+        mRepeatMode = mode;
+        refreshNext();
+    }
+
+    @MainThread
+    public int getRepeatMode() {
+        return mRepeatMode;
+    }
+
+    @MainThread
+    public void setShuffle(boolean shuffle) {
+        if (shuffle == mShuffle)
+            return;
+        mShuffle = shuffle;
+        if (mPosition < 0)
+            return;
+        if (mCurrentDeleted) {
+            /* the new order goes on from the item that followed the deleted one */
+            final int following = mPosition < mOrder.length ? mOrder[mPosition] : -1;
+            buildOrder(following);
+            if (following < 0)
+                mPosition = mOrder.length;
+            mCurrentDeleted = true;
+        } else
+            buildOrder(getCurrentIndex());
+        refreshNext();
+    }
+
+    @MainThread
+    public boolean isShuffle() {
+        return mShuffle;
+    }
+
+    /**
+     * Start the next item some time before the end of the current one, instead of waiting for
+     * {@link MediaPlayer.Event#EndReached}. Only used when the next item is preloaded.
+     *
+     * @param advance time in ms, 0 to wait for the end
+     */
+    @MainThread
+    public void setHandoffAdvance(long advance) {
+        mHandoffAdvance = Math.max(0, advance);
+    }
+
+    /**
+     * Get the gap measured at the last handoff
+     *
+     * @return gap in ms, or -1 if unknown
+     */
+    @MainThread
+    public long getLastGap() {
+        return mLastGap;
+    }
+
+    /**
+     * Get the index in the MediaList of the current item
+     *
+     * @return the index, or -1 if not playing or if the current item was deleted from the list
+     */
+    @MainThread
+    public int getCurrentIndex() {
+        return !mCurrentDeleted && mPosition >= 0 && mPosition < mOrder.length ? mOrder[mPosition] : -1;
+    }
+
+    /**
+     * Play an item of the MediaList
+     */
+    @MainThread
+    public void play(int index) {
+        if (mReleased || index < 0 || index >= mMediaList.getCount())
+            throw new IllegalArgumentException("invalid index " + index);
+        stopPlayers();
+        buildOrder(index);
+        mPosition = indexOf(index);
+        mHandoffStart = -1;
+        mErrors = 0;
+        final Media media = createMedia(index);
+        start(mPlayers[mCurrent], media, false);
+        media.release();
+        notifyItemChanged(index);
+        prepareNext();
+    }
+
+    /**
+     * Play the next item, or stop at the end of the list
+     */
+    @MainThread
+    public void next() {
+        if (mPosition >= 0)
+            handoff(false, false);
+    }
+
+    @MainThread
+    public void previous() {
+        if (mPosition < 0)
+            return;
+        int position = mPosition - 1;
+        if (position < 0) {
+            if (mRepeatMode != REPEAT_ALL || mOrder.length == 0)
+                return;
+            position = mOrder.length - 1;
+        }
+        play(mOrder[position]);
+    }
+
+    @MainThread
+    public void stop() {
+        stopPlayers();
+        mPosition = -1;
+    }
+
+    /**
+     * Stop and release the players and the MediaList
+     */
+    @MainThread
+    public void release() {
+        if (mReleased)
+            return;
+        mReleased = true;
+        stopPlayers();
+        mMediaList.removeEventObserver(mListObserver);
+        mHandler.removeCallbacksAndMessages(null);
+        for (MediaPlayer player : mPlayers)
+            player.release();
+        mMediaList.release();
+    }
+
+    private void stopPlayers() {
+        mHandingOff = false;
+        mPreloadedIndex = -1;
+        mDraining = null;
+        mCurrentDeleted = false;
+        clearNextMedia();
+        for (MediaPlayer player : mPlayers)
+            player.stop();
+    }
+
+    private void clearNextMedia() {
+        if (mNextMedia != null)
+            mNextMedia.release();
+        mNextMedia = null;
+        mNextIndex = -1;
+    }
+
+    private void buildOrder(int current) {
+        final int count = mMediaList.getCount();
+        mOrder = new int[count];
+        for (int i = 0; i < count; ++i)
+            mOrder[i] = i;
+        if (mShuffle) {
+            for (int i = count - 1; i > 0; --i) {
+                final int j = mRandom.nextInt(i + 1);
+                final int tmp = mOrder[i];
+                mOrder[i] = mOrder[j];
+                mOrder[j] = tmp;
+            }
+            /* the current item stays first, so that the whole list plays once */
+            final int pos = indexOf(current);
+            if (pos > 0) {
+                mOrder[pos] = mOrder[0];
+                mOrder[0] = current;
+            }
+        }
+        mPosition = current >= 0 ? indexOf(current) : -1;
+        mCurrentDeleted = false;
+    }
+
+    private int indexOf(int index) {
+        for (int i = 0; i < mOrder.length; ++i) {
+            if (mOrder[i] == index)
+                return i;
+        }
+        return -1;
+    }
+
+    private int getNextPosition() {
+        if (mPosition < 0 || mOrder.length == 0)
+            return -1;
+        if (mCurrentDeleted) {
+            if (mPosition < mOrder.length)
+                return mPosition;
+            return mRepeatMode == REPEAT_ALL ? 0 : -1;
+        }
+        if (mRepeatMode == REPEAT_ONE)
+            return mPosition;
+        final int next = mPosition + 1;
+        if (next < mOrder.length)
+            return next;
+        return mRepeatMode == REPEAT_ALL ? 0 : -1;
+    }
+
+    /**
+     * Create the Media to play an item
+     *
+     * @return a Media to be released by the caller
+     */
+    private Media createMedia(int index) {
+        final Media item = mMediaList.getMediaAt(index);
+        final Uri uri = item.getUri();
+        if (uri == null)
+            return item;
+        /* a Media per playback, so that ":start-paused" doesn't stick to the list item */
+        final Media media = new Media(mLibVLC, uri);
+        item.release();
+        return media;
+    }
+
+    private void start(MediaPlayer player, Media media, boolean paused) {
+        if (paused)
+            media.addOption(":start-paused");
+        player.setMedia(media);
+        player.play();
+    }
+
+    private void prepareNext() {
+        final int next = getNextPosition();
+        /* while draining, the preload player is prepared at the end of the previous item */
+        if (next < 0 || mDraining != null)
+            return;
+        final int index = mOrder[next];
+        /* pre-parse stage, on the Media that will be played */
+        final Media media = createMedia(index);
+        media.parseAsync();
+        if (mPlayers.length > 1 && next != mPosition) {
+            start(mPlayers[1 - mCurrent], media, true);
+            media.release();
+            mPreloadedIndex = index;
+        } else {
+            mNextMedia = media;
+            mNextIndex = index;
+        }
+    }
+
+    /**
+     * Prepare the next item again if it changed
+     */
+    private void refreshNext() {
+        if (mPosition < 0)
+            return;
+        final int next = getNextPosition();
+        final int index = next >= 0 && next != mPosition ? mOrder[next] : -1;
+        if (mPreloadedIndex >= 0 && mPreloadedIndex == index)
+            return;
+        if (mNextMedia != null && next >= 0 && mNextIndex == mOrder[next])
+            return;
+        clearNextMedia();
+        if (mPreloadedIndex >= 0) {
+            mPlayers[1 - mCurrent].stop();
+            mPreloadedIndex = -1;
+        }
+        prepareNext();
+    }
+
+    /**
+     * Play the next item
+     *
+     * @param measure true to measure the gap with the next item
+     * @param drain   true to let the current item play until its end, when the next one is
+     *                preloaded
+     */
+    private void handoff(boolean measure, boolean drain) {
+        if (mHandingOff)
+            return;
+        if (mDraining != null) {
+            mDraining.stop();
+            mDraining = null;
+        }
+        final int next = getNextPosition();
+        if (next < 0) {
+            stop();
+            if (mListener != null)
+                mListener.onEndReached();
+            return;
+        }
+        mHandingOff = true;
+        mHandoffStart = measure ? SystemClock.elapsedRealtime() : -1;
+        final MediaPlayer previous = mPlayers[mCurrent];
+        final int index = mOrder[next];
+        if (index == mPreloadedIndex && next != mPosition) {
+            mCurrent = 1 - mCurrent;
+            mPlayers[mCurrent].play();
+            if (drain)
+                mDraining = previous;
+            else
+                previous.stop();
+            if (mListener != null)
+                mListener.onPlayerChanged(mPlayers[mCurrent]);
+        } else {
+            final Media media;
+            if (mNextMedia != null && mNextIndex == index) {
+                media = mNextMedia;
+                mNextMedia = null;
+                mNextIndex = -1;
+            } else
+                media = createMedia(index);
+            start(previous, media, false);
+            media.release();
+        }
+        mPreloadedIndex = -1;
+        clearNextMedia();
+        mPosition = next;
+        mCurrentDeleted = false;
+        mHandingOff = false;
+        if (!measure)
+            notifyItemChanged(index);
+        prepareNext();
+    }
+
+    private void notifyItemChanged(int index) {
+        if (mListener != null)
+            mListener.onItemChanged(index, mLastGap);
+    }
+
+    private void onListChanged(int eventType, int index) {
+        /* play() builds a new order */
+        if (mReleased || mPosition < 0)
+            return;
+        if (eventType == MediaList.Event.ItemAdded) {
+            for (int i = 0; i < mOrder.length; ++i) {
+                if (mOrder[i] >= index)
+                    mOrder[i]++;
+            }
+            /* in order, or at random among the items not played yet */
+            final int first = mCurrentDeleted ? mPosition : mPosition + 1;
+            final int pos = mShuffle ? first + mRandom.nextInt(mOrder.length - first + 1)
+                    : Math.min(index, mOrder.length);
+            final int[] order = new int[mOrder.length + 1];
+            System.arraycopy(mOrder, 0, order, 0, pos);
+            order[pos] = index;
+            System.arraycopy(mOrder, pos, order, pos + 1, mOrder.length - pos);
+            mOrder = order;
+            if (pos < mPosition || (pos == mPosition && !mCurrentDeleted))
+                mPosition++;
+            if (mPreloadedIndex >= index)
+                mPreloadedIndex++;
+            if (mNextIndex >= index)
+                mNextIndex++;
+        } else if (eventType == MediaList.Event.ItemDeleted) {
+            final int pos = indexOf(index);
+            if (pos < 0)
+                return;
+            final int[] order = new int[mOrder.length - 1];
+            System.arraycopy(mOrder, 0, order, 0, pos);
+            System.arraycopy(mOrder, pos + 1, order, pos, order.length - pos);
+            for (int i = 0; i < order.length; ++i) {
+                if (order[i] > index)
+                    order[i]--;
+            }
+            mOrder = order;
+            if (pos < mPosition)
+                mPosition--;
+            else if (pos == mPosition)
+                /* the current item plays on, the next one is the item that followed it */
+                mCurrentDeleted = true;
+            if (mPreloadedIndex == index) {
+                mPlayers[1 - mCurrent].stop();
+                mPreloadedIndex = -1;
+            } else if (mPreloadedIndex > index)
+                mPreloadedIndex--;
+            if (mNextIndex == index)
+                clearNextMedia();
+            else if (mNextIndex > index)
+                mNextIndex--;
+        }
+        refreshNext();
+    }
+
+    private void onEvent(MediaPlayer player, int eventType, long arg1) {
+        if (mReleased || mPosition < 0)
+            return;
+        if (player == mDraining) {
+            if (eventType == MediaPlayer.Event.EndReached || eventType == MediaPlayer.Event.EncounteredError) {
+                mDraining = null;
+                player.stop();
+                prepareNext();
+            }
+            return;
+        }
+        if (player != mPlayers[mCurrent]) {
+            /* the preloaded item failed, it will be opened again at the handoff */
+            if (eventType == MediaPlayer.Event.EncounteredError && mPreloadedIndex >= 0) {
+                player.stop();
+                mPreloadedIndex = -1;
+            }
+            return;
+        }
+        switch (eventType) {
+            case MediaPlayer.Event.EndReached:
+                handoff(true, false);
+                break;
+            case MediaPlayer.Event.EncounteredError:
+                /* skip the item, unless it's repeated or every item failed */
+                if (mRepeatMode == REPEAT_ONE || ++mErrors >= mOrder.length) {
+                    stop();
+                    if (mListener != null)
+                        mListener.onEndReached();
+                } else
+                    handoff(false, false);
+                break;
+            case MediaPlayer.Event.TimeChanged:
+                mErrors = 0;
+                if (mHandoffStart >= 0) {
+                    mLastGap = SystemClock.elapsedRealtime() - mHandoffStart;
+                    mHandoffStart = -1;
+                    notifyItemChanged(getCurrentIndex());
+                } else if (mHandoffAdvance > 0 && mPreloadedIndex >= 0) {
+                    final long length = player.getPlaybackClock().getLength();
+                    if (length > 0 && length - arg1 <= mHandoffAdvance)
+                        handoff(true, true);
+                }
+                break;
+        }
+    }
+
+    private class Observer implements MediaPlayer.EventObserver {
+        private final MediaPlayer mPlayer;
+
+        private Observer(MediaPlayer player) {
+            mPlayer = player;
+        }
+
+        @Override
+        public void onEvent(final int eventType, final long arg1, long arg2, float argf1) {
+            if (eventType != MediaPlayer.Event.EndReached && eventType != MediaPlayer.Event.TimeChanged
+                    && eventType != MediaPlayer.Event.EncounteredError)
+                return;
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    MediaListPlayer.this.onEvent(mPlayer, eventType, arg1);
+                }
+            });
+        }
+    }
+}
@@ -41,17 +41,29 @@ import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 
 import org.videolan.libvlc.util.AndroidUtil;
+import org.videolan.libvlc.util.DecoderOutcomeStore;
 import org.videolan.libvlc.util.DisplayManager;
 import org.videolan.libvlc.util.VLCUtil;
 import org.videolan.libvlc.util.VLCVideoLayout;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 @SuppressWarnings("unused, JniMissingFunction")
 public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
 
     public static final int SURFACE_SCALES_COUNT = ScaleType.values().length;
+    /* minimum number of decoded pictures to judge a hw decoder */
+    private static final int OUTCOME_MIN_PICTURES = 25;
+    /* stats and tracks are read out of the event thread */
+    private static final Executor sOutcomeExecutor = new ThreadPoolExecutor(0, 1, 5, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>());
     private Media mMedia = null;
     private RendererItem mRenderer = null;
     private AssetFileDescriptor mAfd = null;
@@ -66,6 +78,23 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
     private boolean mAudioDigitalOutputEnabled = false;
     private String mAudioPlugOutputDevice = "stereo";
     private boolean mCanDoPassthrough;
+    private boolean mOutcomePending = false;
+    private boolean mOutcomeVoutSeen = false;
+    private boolean mLowLatency = false;
+    private int mLowLatencyCaching = -1;
+    private final LatencyMonitor mLatencyMonitor = new LatencyMonitor();
+    private final PlaybackClock mPlaybackClock = new PlaybackClock();
+    private final PlayerStateCache mStateCache = new PlayerStateCache();
+    /* titles and chapters, see getChapterIndex() */
+    private final Object mNavigationLock = new Object();
+    private int mNavigationGeneration = 0;
+    private Title[] mTitles = null;
+    private boolean mTitlesValid = false;
+    private final SparseArray<ChapterIndex> mChapterIndexes = new SparseArray<>();
+    /* track descriptions by Media.Track.Type, see getTrackDescriptions() */
+    private final AtomicReferenceArray<TrackCache> mTrackCaches = new AtomicReferenceArray<>(new TrackCache[]{
+            TrackCache.INVALID, TrackCache.INVALID, TrackCache.INVALID});
+    private final CopyOnWriteArrayList<EventObserver> mEventObservers = new CopyOnWriteArrayList<>();
     private final BroadcastReceiver mAudioPlugReceiver =
             AndroidUtil.isLolliPopOrLater && !AndroidUtil.isMarshMallowOrLater ? createAudioPlugReceiver() : null;
     private final AudioDeviceCallback mAudioDeviceCallback =
@@ -107,7 +136,9 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
      */
     public MediaPlayer(LibVLC libVLC) {
         super(libVLC);
+        final long begin = NativeTrace.begin();
         nativeNewFromLibVlc(libVLC, mWindow);
+        NativeTrace.end(NativeTrace.PLAYER_NEW, begin);
     }
     /**
      * Create a MediaPlayer from a Media
@@ -120,7 +151,10 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
             throw new IllegalArgumentException("Media is null or released");
         mMedia = media;
         mMedia.retain();
+        mLatencyMonitor.setCaching(media.getNetworkCaching());
+        final long begin = NativeTrace.begin();
         nativeNewFromMedia(mMedia, mWindow);
+        NativeTrace.end(NativeTrace.PLAYER_NEW, begin);
     }
 
     @SuppressWarnings("unused") /* Used from JNI */
@@ -332,7 +366,10 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
         if (mRenderer != null) mRenderer.release();
         if (item != null) item.retain();
         mRenderer = item;
-        return nativeSetRenderer(item);
+        final long begin = NativeTrace.begin();
+        final int ret = nativeSetRenderer(item);
+        NativeTrace.end(NativeTrace.PLAYER_SET_RENDERER, begin);
+        return ret;
     }
 
     /**
@@ -354,6 +391,13 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
         return mMedia;
     }
 
+    /**
+     * Get the Media without retaining it, for callers holding the MediaPlayer lock
+     */
+    synchronized Media peekMedia() {
+        return mMedia;
+    }
+
     /**
      * Set a Media
      *
@@ -363,9 +407,20 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
         if (media != null) {
             if (media.isReleased())
                 throw new IllegalArgumentException("Media is released");
+            final boolean lowLatency;
+            final int lowLatencyCaching;
+            synchronized (this) {
+                lowLatency = mLowLatency;
+                lowLatencyCaching = mLowLatencyCaching;
+            }
+            if (lowLatency && !media.isLowLatency())
+                media.setLowLatencyProfile(lowLatencyCaching);
             media.setDefaultMediaPlayerOptions();
+            mLatencyMonitor.setCaching(media.getNetworkCaching());
         }
+        final long begin = NativeTrace.begin();
         nativeSetMedia(media);
+        NativeTrace.end(NativeTrace.PLAYER_SET_MEDIA, begin);
         synchronized (this) {
             if (mMedia != null) {
                 mMedia.release();
@@ -376,6 +431,59 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
         }
     }
 
+    /**
+     * Apply the low latency profile to all the media set afterwards with {@link #setMedia(Media)}
+     *
+     * @param caching network caching in ms, or -1 for {@link Media#LOW_LATENCY_CACHING}
+     * @see Media#setLowLatencyProfile(int)
+     */
+    public synchronized void setLowLatencyProfile(int caching) {
+        mLowLatency = true;
+        mLowLatencyCaching = caching;
+    }
+
+    /**
+     * Get the Java side playback clock, to read the time without JNI calls (from UI animators...)
+     */
+    @NonNull
+    public PlaybackClock getPlaybackClock() {
+        return mPlaybackClock;
+    }
+
+    /**
+     * Get the live edge latency monitor, fed by the player events
+     */
+    @NonNull
+    public LatencyMonitor getLatencyMonitor() {
+        return mLatencyMonitor;
+    }
+
+    /**
+     * Start a seekbar scrubbing session, to be used instead of {@link #setTime(long)} while
+     * dragging. It must be used from a thread with a Looper.
+     *
+     * @see ScrubSession
+     */
+    @NonNull
+    public ScrubSession startScrub() {
+        return new ScrubSession.PlayerSession(this);
+    }
+
+    /**
+     * Update the latency estimate with the current media stats and return it
+     *
+     * @return the estimated latency to the live edge in ms, or -1 if unknown
+     * @see LatencyMonitor
+     */
+    public long getLiveLatency() {
+        final Media media = getMedia();
+        if (media != null) {
+            mLatencyMonitor.onStats(media.getStats());
+            media.release();
+        }
+        return mLatencyMonitor.getLatency();
+    }
+
     /**
      * Play the media
      */
@@ -384,10 +492,16 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
             if (!mPlaying) {
                 /* HACK: stop() reset the audio output, so set it again before first play. */
                 if (mAudioReset) {
-                    if (mAudioOutput != null)
+                    if (mAudioOutput != null) {
+                        final long begin = NativeTrace.begin();
                         nativeSetAudioOutput(mAudioOutput);
-                    if (mAudioOutputDevice != null)
+                        NativeTrace.end(NativeTrace.PLAYER_SET_AUDIO_OUTPUT, begin);
+                    }
+                    if (mAudioOutputDevice != null) {
+                        final long begin = NativeTrace.begin();
                         nativeSetAudioOutputDevice(mAudioOutputDevice);
+                        NativeTrace.end(NativeTrace.PLAYER_SET_AUDIO_OUTPUT_DEVICE, begin);
+                    }
                     mAudioReset = false;
                 }
                 if (mListenAudioPlug)
@@ -398,7 +512,9 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
             }
             mPlaying = true;
         }
+        final long begin = NativeTrace.begin();
         nativePlay();
+        NativeTrace.end(NativeTrace.PLAYER_PLAY, begin);
     }
 
     /**
@@ -463,7 +579,9 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
             mPlaying = false;
             mAudioReset = true;
         }
+        final long begin = NativeTrace.begin();
         nativeStop();
+        NativeTrace.end(NativeTrace.PLAYER_STOP, begin);
         if (mAfd != null) try {
             mAfd.close();
         } catch (IOException ignored) {
@@ -477,7 +595,9 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
      * @param timeout
      */
     public void setVideoTitleDisplay(int position, int timeout) {
+        final long begin = NativeTrace.begin();
         nativeSetVideoTitleDisplay(position, timeout);
+        NativeTrace.end(NativeTrace.PLAYER_SET_VIDEO_TITLE_DISPLAY, begin);
     }
 
     /**
@@ -487,7 +607,10 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
      * output window/drawable automatically.
      */
     public float getScale() {
-        return nativeGetScale();
+        final long begin = NativeTrace.begin();
+        final float ret = nativeGetScale();
+        NativeTrace.end(NativeTrace.PLAYER_GET_SCALE, begin);
+        return ret;
     }
 
     /**
@@ -500,7 +623,9 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
      * @param scale the scaling factor, or zero
      */
     public void setScale(float scale) {
+        final long begin = NativeTrace.begin();
         nativeSetScale(scale);
+        NativeTrace.end(NativeTrace.PLAYER_SET_SCALE, begin);
     }
 
     /**
@@ -509,7 +634,10 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
      * @return the video aspect ratio or NULL if unspecified
      */
     public String getAspectRatio() {
-        return nativeGetAspectRatio();
+        final long begin = NativeTrace.begin();
+        final String ret = nativeGetAspectRatio();
+        NativeTrace.end(NativeTrace.PLAYER_GET_ASPECT_RATIO, begin);
+        return ret;
     }
 
     /**
@@ -518,7 +646,9 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
      * @param aspect new video aspect-ratio or NULL to reset to default
      */
     public void setAspectRatio(String aspect) {
+        final long begin = NativeTrace.begin();
         nativeSetAspectRatio(aspect);
+        NativeTrace.end(NativeTrace.PLAYER_SET_ASPECT_RATIO, begin);
     }
 
     private boolean isAudioTrack() {
@@ -537,7 +667,10 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
      * @return true on success.
      */
     public boolean updateViewpoint(float yaw, float pitch, float roll, float fov, boolean absolute) {
-        return nativeUpdateViewpoint(yaw, pitch, roll, fov, absolute);
+        final long begin = NativeTrace.begin();
+        final boolean ret = nativeUpdateViewpoint(yaw, pitch, roll, fov, absolute);
+        NativeTrace.end(NativeTrace.PLAYER_UPDATE_VIEWPOINT, begin);
+        return ret;
     }
 
     /**
@@ -560,7 +693,9 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
         if (!mListenAudioPlug)
             registerAudioPlug(false);
 
+        final long begin = NativeTrace.begin();
         final boolean ret = nativeSetAudioOutput(aout);
+        NativeTrace.end(NativeTrace.PLAYER_SET_AUDIO_OUTPUT, begin);
 
         if (!ret) {
             mAudioOutput = null;
@@ -626,7 +761,9 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
                 registerAudioPlug(false);
         }
 
+        final long begin = NativeTrace.begin();
         final boolean ret = nativeSetAudioOutputDevice(id);
+        NativeTrace.end(NativeTrace.PLAYER_SET_AUDIO_OUTPUT_DEVICE, begin);
 
         if (!ret) {
             mAudioOutputDevice = null;
@@ -661,35 +798,99 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
 
     /**
      * Get the full description of available titles.
+     * <p>
+     * The list is cached until the media or its length changes: don't modify it.
      *
      * @return the list of titles
      */
     public Title[] getTitles() {
-        return nativeGetTitles();
+        final int generation;
+        synchronized (mNavigationLock) {
+            if (mTitlesValid)
+                return mTitles;
+            generation = mNavigationGeneration;
+        }
+        final long begin = NativeTrace.begin();
+        final Title[] titles = nativeGetTitles();
+        NativeTrace.end(NativeTrace.PLAYER_GET_TITLES, begin);
+        synchronized (mNavigationLock) {
+            if (generation == mNavigationGeneration) {
+                mTitles = titles;
+                mTitlesValid = true;
+            }
+        }
+        return titles;
     }
 
     /**
      * Get the full description of available chapters.
+     * <p>
+     * The list is cached until the media or its length changes: don't modify it.
      *
      * @param title index of the title (if -1, use the current title)
      * @return the list of Chapters for the title
      */
     public Chapter[] getChapters(int title) {
-        return nativeGetChapters(title);
+        if (title == -1)
+            title = getTitle();
+        return getChapterIndex(title).getNativeChapters();
+    }
+
+    /**
+     * Get the chapter index of a title, to look up chapters and chapter boundaries by time.
+     * <p>
+     * The index is cached until the media or its length changes.
+     *
+     * @param title index of the title (if -1, use the current title)
+     */
+    @NonNull
+    public ChapterIndex getChapterIndex(int title) {
+        if (title == -1)
+            title = getTitle();
+        if (title < 0)
+            return ChapterIndex.EMPTY;
+        final int generation;
+        synchronized (mNavigationLock) {
+            final ChapterIndex index = mChapterIndexes.get(title);
+            if (index != null)
+                return index;
+            generation = mNavigationGeneration;
+        }
+        final long begin = NativeTrace.begin();
+        final Chapter[] chapters = nativeGetChapters(title);
+        NativeTrace.end(NativeTrace.PLAYER_GET_CHAPTERS, begin);
+        final ChapterIndex index = new ChapterIndex(chapters);
+        synchronized (mNavigationLock) {
+            if (generation == mNavigationGeneration)
+                mChapterIndexes.put(title, index);
+        }
+        return index;
+    }
+
+    private void invalidateNavigation() {
+        synchronized (mNavigationLock) {
+            mNavigationGeneration++;
+            mTitles = null;
+            mTitlesValid = false;
+            mChapterIndexes.clear();
+        }
     }
 
     /**
      * Get the number of available video tracks.
      */
     public int getVideoTracksCount() {
-        return nativeGetVideoTracksCount();
+        final TrackDescription[] tracks = getTrackDescriptions(Media.Track.Type.Video);
+        return tracks != null ? tracks.length : 0;
     }
 
     /**
      * Get the list of available video tracks.
+     * <p>
+     * The list is cached until video tracks are added or removed: don't modify it.
      */
     public TrackDescription[] getVideoTracks() {
-        return nativeGetVideoTracks();
+        return getTrackDescriptions(Media.Track.Type.Video);
     }
 
     /**
@@ -698,7 +899,10 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
      * @return the video track ID or -1 if no active input
      */
     public int getVideoTrack() {
-        return nativeGetVideoTrack();
+        final long begin = NativeTrace.begin();
+        final int ret = nativeGetVideoTrack();
+        NativeTrace.end(NativeTrace.PLAYER_GET_TRACK, begin);
+        return ret;
     }
 
     /**
@@ -709,7 +913,10 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
     public boolean setVideoTrack(int index) {
         /* Don't activate a video track is surfaces are not ready */
         if (index == -1 || (mWindow.areViewsAttached() && !mWindow.areSurfacesWaiting())) {
-            return nativeSetVideoTrack(index);
+            final long begin = NativeTrace.begin();
+            final boolean ret = nativeSetVideoTrack(index);
+            NativeTrace.end(NativeTrace.PLAYER_SET_TRACK, begin);
+            return ret;
         } else
             return false;
     }
@@ -754,14 +961,17 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
      * Get the number of available audio tracks.
      */
     public int getAudioTracksCount() {
-        return nativeGetAudioTracksCount();
+        final TrackDescription[] tracks = getTrackDescriptions(Media.Track.Type.Audio);
+        return tracks != null ? tracks.length : 0;
     }
 
     /**
      * Get the list of available audio tracks.
+     * <p>
+     * The list is cached until audio tracks are added or removed: don't modify it.
      */
     public TrackDescription[] getAudioTracks() {
-        return nativeGetAudioTracks();
+        return getTrackDescriptions(Media.Track.Type.Audio);
     }
 
     /**
@@ -770,7 +980,10 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
      * @return the audio track ID or -1 if no active input
      */
     public int getAudioTrack() {
-        return nativeGetAudioTrack();
+        final long begin = NativeTrace.begin();
+        final int ret = nativeGetAudioTrack();
+        NativeTrace.end(NativeTrace.PLAYER_GET_TRACK, begin);
+        return ret;
     }
 
     /**
@@ -779,7 +992,10 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
      * @return true on success.
      */
     public boolean setAudioTrack(int index) {
-        return nativeSetAudioTrack(index);
+        final long begin = NativeTrace.begin();
+        final boolean ret = nativeSetAudioTrack(index);
+        NativeTrace.end(NativeTrace.PLAYER_SET_TRACK, begin);
+        return ret;
     }
 
     /**
@@ -788,7 +1004,10 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
      * @return delay in microseconds.
      */
     public long getAudioDelay() {
-        return nativeGetAudioDelay();
+        final long begin = NativeTrace.begin();
+        final long ret = nativeGetAudioDelay();
+        NativeTrace.end(NativeTrace.PLAYER_GET_AUDIO_DELAY, begin);
+        return ret;
     }
 
     /**
@@ -798,21 +1017,73 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
      * @return true on success.
      */
     public boolean setAudioDelay(long delay) {
-        return nativeSetAudioDelay(delay);
+        final long begin = NativeTrace.begin();
+        final boolean ret = nativeSetAudioDelay(delay);
+        NativeTrace.end(NativeTrace.PLAYER_SET_AUDIO_DELAY, begin);
+        return ret;
     }
 
     /**
      * Get the number of available spu (subtitle) tracks.
      */
     public int getSpuTracksCount() {
-        return nativeGetSpuTracksCount();
+        final TrackDescription[] tracks = getTrackDescriptions(Media.Track.Type.Text);
+        return tracks != null ? tracks.length : 0;
     }
 
     /**
      * Get the list of available spu (subtitle) tracks.
+     * <p>
+     * The list is cached until spu tracks are added or removed: don't modify it.
      */
     public TrackDescription[] getSpuTracks() {
-        return nativeGetSpuTracks();
+        return getTrackDescriptions(Media.Track.Type.Text);
+    }
+
+    /**
+     * Get the track descriptions of a type from the cache, or natively if they changed.
+     * <p>
+     * Caches are immutable and replaced atomically: an invalidation from the event thread
+     * replaces the cache by a new invalid one, so that a concurrent native read can't store
+     * descriptions that are already outdated.
+     */
+    private TrackDescription[] getTrackDescriptions(int type) {
+        final TrackCache cache = mTrackCaches.get(type);
+        if (cache.mValid)
+            return cache.mTracks;
+        final TrackDescription[] tracks;
+        final long begin = NativeTrace.begin();
+        switch (type) {
+            case Media.Track.Type.Audio:
+                tracks = nativeGetAudioTracks();
+                break;
+            case Media.Track.Type.Video:
+                tracks = nativeGetVideoTracks();
+                break;
+            default:
+                tracks = nativeGetSpuTracks();
+                break;
+        }
+        NativeTrace.end(NativeTrace.PLAYER_GET_TRACKS, begin);
+        mTrackCaches.compareAndSet(type, cache, new TrackCache(tracks, true));
+        return tracks;
+    }
+
+    private void invalidateTrackDescriptions(int type) {
+        if (type >= 0 && type < mTrackCaches.length())
+            mTrackCaches.set(type, new TrackCache(null, false));
+    }
+
+    private static final class TrackCache {
+        static final TrackCache INVALID = new TrackCache(null, false);
+
+        final TrackDescription[] mTracks;
+        final boolean mValid;
+
+        TrackCache(TrackDescription[] tracks, boolean valid) {
+            mTracks = tracks;
+            mValid = valid;
+        }
     }
 
     /**
@@ -821,7 +1092,10 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
      * @return the spu (subtitle) track ID or -1 if no active input
      */
     public int getSpuTrack() {
-        return nativeGetSpuTrack();
+        final long begin = NativeTrace.begin();
+        final int ret = nativeGetSpuTrack();
+        NativeTrace.end(NativeTrace.PLAYER_GET_TRACK, begin);
+        return ret;
     }
 
     /**
@@ -830,7 +1104,10 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
      * @return true on success.
      */
     public boolean setSpuTrack(int index) {
-        return nativeSetSpuTrack(index);
+        final long begin = NativeTrace.begin();
+        final boolean ret = nativeSetSpuTrack(index);
+        NativeTrace.end(NativeTrace.PLAYER_SET_TRACK, begin);
+        return ret;
     }
 
     /**
@@ -839,7 +1116,10 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
      * @return delay in microseconds.
      */
     public long getSpuDelay() {
-        return nativeGetSpuDelay();
+        final long begin = NativeTrace.begin();
+        final long ret = nativeGetSpuDelay();
+        NativeTrace.end(NativeTrace.PLAYER_GET_SPU_DELAY, begin);
+        return ret;
     }
 
     /**
@@ -849,7 +1129,10 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
      * @return true on success.
      */
     public boolean setSpuDelay(long delay) {
-        return nativeSetSpuDelay(delay);
+        final long begin = NativeTrace.begin();
+        final boolean ret = nativeSetSpuDelay(delay);
+        NativeTrace.end(NativeTrace.PLAYER_SET_SPU_DELAY, begin);
+        return ret;
     }
 
     /**
@@ -874,7 +1157,10 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
      * @return true on success.
      */
     public boolean setEqualizer(Equalizer equalizer) {
-        return nativeSetEqualizer(equalizer);
+        final long begin = NativeTrace.begin();
+        final boolean ret = nativeSetEqualizer(equalizer);
+        NativeTrace.end(NativeTrace.PLAYER_SET_EQUALIZER, begin);
+        return ret;
     }
 
     /**
@@ -885,7 +1171,10 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
      * @return true on success.
      */
     public boolean addSlave(int type, Uri uri, boolean select) {
-        return nativeAddSlave(type, VLCUtil.encodeVLCUri(uri), select);
+        final long begin = NativeTrace.begin();
+        final boolean ret = nativeAddSlave(type, VLCUtil.encodeVLCUri(uri), select);
+        NativeTrace.end(NativeTrace.PLAYER_ADD_SLAVE, begin);
+        return ret;
     }
 
     /**
@@ -999,20 +1288,35 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
 
     @Override
     protected synchronized Event onEventNative(int eventType, long arg1, long arg2, float argf1) {
+        mPlaybackClock.onEvent(eventType, arg1, argf1);
+        updateStateCache(eventType, arg1, arg2);
+        for (EventObserver observer : mEventObservers)
+            observer.onEvent(eventType, arg1, arg2, argf1);
         switch (eventType) {
-            case Event.MediaChanged:
             case Event.Stopped:
             case Event.EndReached:
             case Event.EncounteredError:
-                mVoutCount = 0;
-                notify();
+                recordDecoderOutcome(eventType == Event.EncounteredError);
+                onPlaybackReset();
+                return new Event(eventType, argf1);
+            case Event.MediaChanged:
+                onPlaybackReset();
+                return new Event(eventType, argf1);
             case Event.Opening:
+                return new Event(eventType, argf1);
             case Event.Buffering:
+                mLatencyMonitor.onBuffering(argf1);
                 return new Event(eventType, argf1);
             case Event.Playing:
+                if (!mOutcomePending) {
+                    mOutcomePending = true;
+                    mOutcomeVoutSeen = false;
+                }
+                return new Event(eventType);
             case Event.Paused:
                 return new Event(eventType);
             case Event.TimeChanged:
+                mLatencyMonitor.onTimeChanged(arg1);
                 return new Event(eventType, arg1);
             case Event.LengthChanged:
                 return new Event(eventType, arg1);
@@ -1020,6 +1324,8 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
                 return new Event(eventType, argf1);
             case Event.Vout:
                 mVoutCount = (int) arg1;
+                if (mVoutCount > 0)
+                    mOutcomeVoutSeen = true;
                 notify();
                 return new Event(eventType, arg1);
             case Event.ESAdded:
@@ -1033,6 +1339,124 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
         return null;
     }
 
+    /**
+     * The playback stopped or the media changed, must be called locked
+     */
+    private void onPlaybackReset() {
+        mOutcomePending = false;
+        mVoutCount = 0;
+        mLatencyMonitor.onReset();
+        notify();
+    }
+
+    /**
+     * Fill a PlayerState with the current state of this MediaPlayer.
+     * <p>
+     * Time, length and position come from the {@link PlaybackClock}; playing, seekable, pausable,
+     * state and the selected audio and spu tracks are cached from the player events. Only the rate
+     * and the volume, that can't be followed from events, are read natively, so this costs two JNI
+     * calls instead of one per getter, and doesn't allocate when a PlayerState is reused.
+     *
+     * @param reuse PlayerState to fill, or null to allocate a new one
+     * @return the filled PlayerState
+     */
+    @NonNull
+    public PlayerState snapshot(@Nullable PlayerState reuse) {
+        final PlayerState state = reuse != null ? reuse : new PlayerState();
+        final PlaybackClock clock = mPlaybackClock;
+        state.time = clock.getTime();
+        state.length = clock.getLength();
+        state.position = clock.getPosition();
+        mStateCache.fill(state);
+        if (!isReleased()) {
+            state.rate = getRate();
+            state.volume = getVolume();
+        }
+        return state;
+    }
+
+    private void updateStateCache(int eventType, long arg1, long arg2) {
+        switch (eventType) {
+            case Event.ESAdded:
+            case Event.ESDeleted:
+                invalidateTrackDescriptions((int) arg1);
+                break;
+            case Event.MediaChanged:
+            case Event.Stopped:
+                for (int i = 0; i < mTrackCaches.length(); ++i)
+                    invalidateTrackDescriptions(i);
+                if (eventType == Event.MediaChanged)
+                    invalidateNavigation();
+                break;
+            case Event.LengthChanged:
+                invalidateNavigation();
+                break;
+        }
+        mStateCache.onEvent(eventType, arg1, arg2);
+    }
+
+    /**
+     * Observe raw events, from the native thread and while this MediaPlayer is locked
+     */
+    interface EventObserver {
+        void onEvent(int eventType, long arg1, long arg2, float argf1);
+    }
+
+    void addEventObserver(EventObserver observer) {
+        mEventObservers.addIfAbsent(observer);
+    }
+
+    void removeEventObserver(EventObserver observer) {
+        mEventObservers.remove(observer);
+    }
+
+    /**
+     * Feed the {@link DecoderOutcomeStore} with the result of a playback that used a hw decoder.
+     * <p>
+     * An error before any picture is displayed, a video that is decoded but never displayed, or
+     * more than half of the pictures lost are failures. Playbacks that displayed enough pictures
+     * are successes.
+     */
+    private void recordDecoderOutcome(final boolean error) {
+        if (!mOutcomePending)
+            return;
+        mOutcomePending = false;
+        final boolean voutSeen = mOutcomeVoutSeen;
+        final Media media = mMedia;
+        if (media == null || !media.isHWDecoderRequested() || !media.retain())
+            return;
+        final Context context = mLibVLC.mAppContext;
+        sOutcomeExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final Media.VideoTrack track = media.getVideoTrack();
+                    if (track == null)
+                        return;
+                    final String key = DecoderOutcomeStore.getKey(track);
+                    final DecoderOutcomeStore store = DecoderOutcomeStore.getInstance(context);
+                    final Media.Stats stats = media.getStats();
+                    if (error && !voutSeen) {
+                        /* blame the decoder only if the input was opened and demuxed, and no
+                         * picture came out of it: network or access errors are not its fault */
+                        if (stats != null && stats.demuxReadBytes > 0 && stats.displayedPictures == 0)
+                            store.recordFailure(key);
+                        return;
+                    }
+                    if (stats == null || stats.decodedVideo < OUTCOME_MIN_PICTURES)
+                        return;
+                    if ((!voutSeen && stats.displayedPictures == 0)
+                            || stats.lostPictures > stats.displayedPictures)
+                        store.recordFailure(key);
+                    else if (stats.displayedPictures >= OUTCOME_MIN_PICTURES)
+                        store.recordSuccess(key);
+                } finally {
+                    media.release();
+                }
+            }
+        });
+    }
+
     @Override
     protected void onReleaseNative() {
         detachViews();
@@ -1044,7 +1468,9 @@ public class MediaPlayer extends VLCObject<MediaPlayer.Event> {
         if (mRenderer != null)
             mRenderer.release();
         mVoutCount = 0;
+        final long begin = NativeTrace.begin();
         nativeRelease();
+        NativeTrace.end(NativeTrace.PLAYER_RELEASE, begin);
     }
 
     public boolean canDoPassthrough() {
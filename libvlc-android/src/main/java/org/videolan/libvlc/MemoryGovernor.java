@@ -0,0 +1,196 @@
+/*****************************************************************************
+ * MemoryGovernor.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Memory pressure handling of the objects created from a {@link LibVLC}.
+ * <p>
+ * The governor receives the {@link ComponentCallbacks2} of the application and maps them to
+ * three shedding levels: {@link #SHED_CACHES} drops caches that can be rebuilt,
+ * {@link #SHED_IDLE} also stops idle players (preloads...), {@link #SHED_ALL} also stops
+ * background work like discoverers. Nothing is shed unless the application adds it with
+ * {@link #add(Sheddable, int)}: it opts in to what may be shed, and from which level.
+ */
+public class MemoryGovernor implements ComponentCallbacks2 {
+    private static final String TAG = "LibVLC/MemoryGovernor";
+    public static final int SHED_NONE = -1;
+    public static final int SHED_CACHES = 0;
+    public static final int SHED_IDLE = 1;
+    public static final int SHED_ALL = 2;
+
+    private final CopyOnWriteArrayList<Entry> mEntries = new CopyOnWriteArrayList<>();
+    private Context mContext = null;
+    private volatile Listener mListener = null;
+    private long mLastFreed = 0;
+    private long mTotalFreed = 0;
+
+    /**
+     * Object whose memory can be shed
+     */
+    public interface Sheddable {
+        /**
+         * Shed what this level allows. Called from the thread of {@link MemoryGovernor#shed(int)},
+         * the main thread for the memory callbacks of the application, but any thread otherwise.
+         *
+         * @param level {@link #SHED_CACHES}, {@link #SHED_IDLE} or {@link #SHED_ALL}
+         * @return number of bytes freed, or 0 if unknown
+         */
+        long shed(int level);
+    }
+
+    public interface Listener {
+        /**
+         * Memory was shed
+         *
+         * @param level shedding level
+         * @param freed number of bytes freed, as reported by the sheddables
+         */
+        void onShed(int level, long freed);
+    }
+
+    private static class Entry {
+        final Sheddable sheddable;
+        final int minLevel;
+
+        Entry(Sheddable sheddable, int minLevel) {
+            this.sheddable = sheddable;
+            this.minLevel = minLevel;
+        }
+    }
+
+    MemoryGovernor() {
+    }
+
+    synchronized void register(Context context) {
+        if (mContext != null)
+            return;
+        mContext = context;
+        mContext.registerComponentCallbacks(this);
+    }
+
+    synchronized void unregister() {
+        if (mContext == null)
+            return;
+        mContext.unregisterComponentCallbacks(this);
+        mContext = null;
+    }
+
+    /**
+     * Allow an object to be shed
+     *
+     * @param minLevel lowest level that sheds it
+     */
+    public void add(@NonNull Sheddable sheddable, int minLevel) {
+        remove(sheddable);
+        mEntries.add(new Entry(sheddable, minLevel));
+    }
+
+    public void remove(@NonNull Sheddable sheddable) {
+        for (Entry entry : mEntries) {
+            if (entry.sheddable == sheddable)
+                mEntries.remove(entry);
+        }
+    }
+
+    public void setListener(@Nullable Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Get the number of bytes freed by the last shedding
+     */
+    public synchronized long getLastFreed() {
+        return mLastFreed;
+    }
+
+    /**
+     * Get the number of bytes freed since the creation of the governor
+     */
+    public synchronized long getTotalFreed() {
+        return mTotalFreed;
+    }
+
+    /**
+     * Get the shedding level of a {@link ComponentCallbacks2} trim level
+     */
+    public static int getShedLevel(int trimLevel) {
+        if (trimLevel >= TRIM_MEMORY_COMPLETE)
+            return SHED_ALL;
+        if (trimLevel >= TRIM_MEMORY_MODERATE || trimLevel == TRIM_MEMORY_RUNNING_CRITICAL)
+            return SHED_IDLE;
+        if (trimLevel >= TRIM_MEMORY_RUNNING_LOW)
+            return SHED_CACHES;
+        return SHED_NONE;
+    }
+
+    /**
+     * Shed the added objects allowed at this level
+     *
+     * @return number of bytes freed
+     */
+    public long shed(int level) {
+        if (level < SHED_CACHES)
+            return 0;
+        long freed = 0;
+        for (Entry entry : mEntries) {
+            if (level < entry.minLevel)
+                continue;
+            try {
+                freed += Math.max(0, entry.sheddable.shed(level));
+            } catch (RuntimeException e) {
+                Log.e(TAG, "shedding of " + entry.sheddable.getClass().getSimpleName() + " failed", e);
+            }
+        }
+        synchronized (this) {
+            mLastFreed = freed;
+            mTotalFreed += freed;
+        }
+        Log.i(TAG, "level " + level + ": " + freed + " bytes freed");
+        final Listener listener = mListener;
+        if (listener != null)
+            listener.onShed(level, freed);
+        return freed;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        shed(getShedLevel(level));
+    }
+
+    @Override
+    public void onLowMemory() {
+        shed(SHED_ALL);
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+}
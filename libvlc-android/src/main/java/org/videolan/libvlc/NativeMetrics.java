@@ -0,0 +1,130 @@
+/*****************************************************************************
+ * NativeMetrics.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Production metrics of the native calls: a call counter, the total time and a latency
+ * histogram for each native method traced by {@link NativeTrace}.
+ * <p>
+ * Counters are striped by thread over a single {@link AtomicLongArray}, so that concurrent calls
+ * don't contend on the same counters, and recording a call neither locks nor allocates.
+ * Histograms have fixed buckets, see {@link #getBucketBounds()}. Counters are cumulative: a
+ * telemetry {@link Sink} polls them with {@link #poll(Sink)} and computes its own deltas.
+ */
+public final class NativeMetrics {
+    /* upper bounds of the histogram buckets in µs, the last bucket has no bound */
+    private static final long[] BUCKET_BOUNDS_US = {
+            50, 100, 250, 500, 1000, 2500, 5000, 10000, 25000, 50000, 100000, 250000, 500000, 1000000
+    };
+    public static final int BUCKET_COUNT = BUCKET_BOUNDS_US.length + 1;
+
+    private static final int COUNT_SLOT = 0;
+    private static final int TIME_SLOT = 1;
+    private static final int BUCKET_SLOT = 2;
+    /* more than a cache line per method and stripe */
+    private static final int SLOTS = BUCKET_SLOT + BUCKET_COUNT;
+
+    private static final int STRIPES = getStripeCount();
+    private static final AtomicLongArray sCounters =
+            new AtomicLongArray(STRIPES * NativeTrace.METHOD_COUNT * SLOTS);
+    private static volatile boolean sEnabled = false;
+
+    private NativeMetrics() {
+    }
+
+    /**
+     * Receiver of the metrics of each native method
+     */
+    public interface Sink {
+        /**
+         * @param method    name of the native method
+         * @param count     number of calls
+         * @param totalTime total duration of the calls in ns
+         * @param buckets   number of calls by duration, see {@link #getBucketBounds()}. The array
+         *                  is reused between methods.
+         */
+        void onMetrics(@NonNull String method, long count, long totalTime, @NonNull long[] buckets);
+    }
+
+    private static int getStripeCount() {
+        final int cpus = Runtime.getRuntime().availableProcessors();
+        int stripes = 1;
+        while (stripes < cpus && stripes < 16)
+            stripes <<= 1;
+        return stripes;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+        NativeTrace.updateActive();
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Get the upper bounds of the histogram buckets, in µs. The last bucket has no upper bound.
+     */
+    @NonNull
+    public static long[] getBucketBounds() {
+        return BUCKET_BOUNDS_US.clone();
+    }
+
+    /**
+     * Report the metrics of the called native methods
+     */
+    public static void poll(@NonNull Sink sink) {
+        final long[] buckets = new long[BUCKET_COUNT];
+        for (int method = 0; method < NativeTrace.METHOD_COUNT; ++method) {
+            long count = 0, time = 0;
+            for (int i = 0; i < BUCKET_COUNT; ++i)
+                buckets[i] = 0;
+            for (int stripe = 0; stripe < STRIPES; ++stripe) {
+                final int base = (stripe * NativeTrace.METHOD_COUNT + method) * SLOTS;
+                count += sCounters.get(base + COUNT_SLOT);
+                time += sCounters.get(base + TIME_SLOT);
+                for (int i = 0; i < BUCKET_COUNT; ++i)
+                    buckets[i] += sCounters.get(base + BUCKET_SLOT + i);
+            }
+            if (count > 0)
+                sink.onMetrics(NativeTrace.getName(method), count, time, buckets);
+        }
+    }
+
+    static void record(int method, long duration) {
+        if (!sEnabled)
+            return;
+        final int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        final int base = (stripe * NativeTrace.METHOD_COUNT + method) * SLOTS;
+        final long us = duration / 1000;
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_US.length && us > BUCKET_BOUNDS_US[bucket])
+            bucket++;
+        sCounters.incrementAndGet(base + COUNT_SLOT);
+        sCounters.addAndGet(base + TIME_SLOT, duration);
+        sCounters.incrementAndGet(base + BUCKET_SLOT + bucket);
+    }
+}
@@ -0,0 +1,346 @@
+/*****************************************************************************
+ * NativeTrace.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc;
+
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Debug tracing of the JNI calls, similar to StrictMode.
+ * <p>
+ * The native calls made by the Java methods of {@link LibVLC}, {@link Media}, {@link MediaList}
+ * and {@link MediaPlayer} are wrapped with {@link #begin()} and {@link #end(int, long)}, that
+ * also feed {@link NativeMetrics}. Once enabled, each call is counted and timed, along with its
+ * calling thread, and main thread calls slower than a threshold are logged with their stack
+ * trace. When both are disabled, a call only costs the read of a volatile flag.
+ * <p>
+ * Public native methods (getTime(), setPosition()...) are bound directly by the JNI, and are not
+ * traced, nor are the natives of {@link MediaPlayer.Equalizer} and of the discoverers.
+ */
+public final class NativeTrace {
+    private static final String TAG = "LibVLC/NativeTrace";
+    public static final long DEFAULT_SLOW_CALL_MS = 8;
+    /* returned by begin() when nothing is recorded */
+    private static final long NOT_TRACED = Long.MIN_VALUE;
+
+    /* traced native methods */
+    public static final int LIBVLC_NEW = 0;
+    public static final int LIBVLC_RELEASE = 1;
+    public static final int LIBVLC_SET_USER_AGENT = 2;
+    public static final int MEDIA_NEW = 3;
+    public static final int MEDIA_RELEASE = 4;
+    public static final int MEDIA_PARSE = 5;
+    public static final int MEDIA_PARSE_ASYNC = 6;
+    public static final int MEDIA_GET_DURATION = 7;
+    public static final int MEDIA_GET_STATE = 8;
+    public static final int MEDIA_GET_TYPE = 9;
+    public static final int MEDIA_GET_TRACKS = 10;
+    public static final int MEDIA_GET_META = 11;
+    public static final int MEDIA_GET_STATS = 12;
+    public static final int MEDIA_ADD_OPTION = 13;
+    public static final int MEDIA_GET_MRL = 14;
+    public static final int MEDIA_ADD_SLAVE = 15;
+    public static final int MEDIA_CLEAR_SLAVES = 16;
+    public static final int MEDIA_GET_SLAVES = 17;
+    public static final int MEDIA_LIST_NEW = 18;
+    public static final int MEDIA_LIST_RELEASE = 19;
+    public static final int MEDIA_LIST_GET_COUNT = 20;
+    public static final int MEDIA_LIST_LOCK = 21;
+    public static final int MEDIA_LIST_UNLOCK = 22;
+    public static final int PLAYER_NEW = 23;
+    public static final int PLAYER_RELEASE = 24;
+    public static final int PLAYER_SET_MEDIA = 25;
+    public static final int PLAYER_PLAY = 26;
+    public static final int PLAYER_STOP = 27;
+    public static final int PLAYER_GET_TITLES = 28;
+    public static final int PLAYER_GET_CHAPTERS = 29;
+    public static final int PLAYER_GET_TRACKS = 30;
+    public static final int PLAYER_GET_TRACK = 31;
+    public static final int PLAYER_SET_TRACK = 32;
+    public static final int PLAYER_SET_AUDIO_OUTPUT = 33;
+    public static final int PLAYER_SET_AUDIO_OUTPUT_DEVICE = 34;
+    public static final int PLAYER_ADD_SLAVE = 35;
+    public static final int PLAYER_SET_RENDERER = 36;
+    public static final int PLAYER_SET_VIDEO_TITLE_DISPLAY = 37;
+    public static final int PLAYER_GET_SCALE = 38;
+    public static final int PLAYER_SET_SCALE = 39;
+    public static final int PLAYER_GET_ASPECT_RATIO = 40;
+    public static final int PLAYER_SET_ASPECT_RATIO = 41;
+    public static final int PLAYER_UPDATE_VIEWPOINT = 42;
+    public static final int PLAYER_GET_AUDIO_DELAY = 43;
+    public static final int PLAYER_SET_AUDIO_DELAY = 44;
+    public static final int PLAYER_GET_SPU_DELAY = 45;
+    public static final int PLAYER_SET_SPU_DELAY = 46;
+    public static final int PLAYER_SET_EQUALIZER = 47;
+    public static final int UTIL_GET_THUMBNAIL = 48;
+    public static final int METHOD_COUNT = 49;
+
+    private static final String[] NAMES = {
+            "LibVLC.nativeNew",
+            "LibVLC.nativeRelease",
+            "LibVLC.nativeSetUserAgent",
+            "Media.nativeNew",
+            "Media.nativeRelease",
+            "Media.nativeParse",
+            "Media.nativeParseAsync",
+            "Media.nativeGetDuration",
+            "Media.nativeGetState",
+            "Media.nativeGetType",
+            "Media.nativeGetTracks",
+            "Media.nativeGetMeta",
+            "Media.nativeGetStats",
+            "Media.nativeAddOption",
+            "Media.nativeGetMrl",
+            "Media.nativeAddSlave",
+            "Media.nativeClearSlaves",
+            "Media.nativeGetSlaves",
+            "MediaList.nativeNew",
+            "MediaList.nativeRelease",
+            "MediaList.nativeGetCount",
+            "MediaList.nativeLock",
+            "MediaList.nativeUnlock",
+            "MediaPlayer.nativeNew",
+            "MediaPlayer.nativeRelease",
+            "MediaPlayer.nativeSetMedia",
+            "MediaPlayer.nativePlay",
+            "MediaPlayer.nativeStop",
+            "MediaPlayer.nativeGetTitles",
+            "MediaPlayer.nativeGetChapters",
+            "MediaPlayer.nativeGetTracks",
+            "MediaPlayer.nativeGetTrack",
+            "MediaPlayer.nativeSetTrack",
+            "MediaPlayer.nativeSetAudioOutput",
+            "MediaPlayer.nativeSetAudioOutputDevice",
+            "MediaPlayer.nativeAddSlave",
+            "MediaPlayer.nativeSetRenderer",
+            "MediaPlayer.nativeSetVideoTitleDisplay",
+            "MediaPlayer.nativeGetScale",
+            "MediaPlayer.nativeSetScale",
+            "MediaPlayer.nativeGetAspectRatio",
+            "MediaPlayer.nativeSetAspectRatio",
+            "MediaPlayer.nativeUpdateViewpoint",
+            "MediaPlayer.nativeGetAudioDelay",
+            "MediaPlayer.nativeSetAudioDelay",
+            "MediaPlayer.nativeGetSpuDelay",
+            "MediaPlayer.nativeSetSpuDelay",
+            "MediaPlayer.nativeSetEqualizer",
+            "VLCUtil.nativeGetThumbnail",
+    };
+
+    private static volatile boolean sEnabled = false;
+    /* tracing or metrics enabled */
+    private static volatile boolean sActive = false;
+    private static volatile long sSlowCallNs = DEFAULT_SLOW_CALL_MS * 1000000L;
+    private static volatile Listener sListener = null;
+    private static final MethodStats[] sStats = new MethodStats[METHOD_COUNT];
+
+    static {
+        for (int i = 0; i < METHOD_COUNT; ++i)
+            sStats[i] = new MethodStats(NAMES[i]);
+    }
+
+    private NativeTrace() {
+    }
+
+    public interface Listener {
+        /**
+         * A main thread call was slower than the threshold. Called from the main thread.
+         *
+         * @param method   name of the native method
+         * @param duration duration in ns
+         * @param stack    stack trace of the call
+         */
+        void onSlowCall(String method, long duration, Throwable stack);
+    }
+
+    /**
+     * Statistics of a native method
+     */
+    public static class MethodStats {
+        public final String name;
+        public long count;
+        public long totalTime;
+        public long maxTime;
+        public long mainThreadCount;
+        public long mainThreadTime;
+        public long slowCallCount;
+        public String lastThread;
+
+        private MethodStats(String name) {
+            this.name = name;
+        }
+
+        private MethodStats(MethodStats stats) {
+            this.name = stats.name;
+            this.count = stats.count;
+            this.totalTime = stats.totalTime;
+            this.maxTime = stats.maxTime;
+            this.mainThreadCount = stats.mainThreadCount;
+            this.mainThreadTime = stats.mainThreadTime;
+            this.slowCallCount = stats.slowCallCount;
+            this.lastThread = stats.lastThread;
+        }
+
+        private void reset() {
+            count = totalTime = maxTime = mainThreadCount = mainThreadTime = slowCallCount = 0;
+            lastThread = null;
+        }
+    }
+
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+        updateActive();
+    }
+
+    static void updateActive() {
+        sActive = sEnabled || NativeMetrics.isEnabled();
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Set the duration above which main thread calls are reported
+     *
+     * @param threshold duration in ms
+     */
+    public static void setSlowCallThreshold(long threshold) {
+        sSlowCallNs = threshold * 1000000L;
+    }
+
+    public static void setListener(@Nullable Listener listener) {
+        sListener = listener;
+    }
+
+    /**
+     * Get the name of a traced method
+     */
+    @NonNull
+    public static String getName(int method) {
+        return NAMES[method];
+    }
+
+    /**
+     * Get the statistics of the called methods, by decreasing total time
+     */
+    @NonNull
+    public static List<MethodStats> getReport() {
+        final ArrayList<MethodStats> report = new ArrayList<>();
+        for (MethodStats stats : sStats) {
+            synchronized (stats) {
+                if (stats.count > 0)
+                    report.add(new MethodStats(stats));
+            }
+        }
+        Collections.sort(report, new Comparator<MethodStats>() {
+            @Override
+            public int compare(MethodStats s1, MethodStats s2) {
+                return s1.totalTime < s2.totalTime ? 1 : (s1.totalTime == s2.totalTime ? 0 : -1);
+            }
+        });
+        return report;
+    }
+
+    /**
+     * Get a printable report of the called methods
+     */
+    @NonNull
+    public static String dump() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "%-36s %8s %10s %9s %8s %10s %6s%n",
+                "method", "calls", "total ms", "max ms", "main", "main ms", "slow"));
+        for (MethodStats stats : getReport()) {
+            sb.append(String.format(Locale.US, "%-36s %8d %10.1f %9.2f %8d %10.1f %6d%n",
+                    stats.name, stats.count, stats.totalTime / 1e6, stats.maxTime / 1e6,
+                    stats.mainThreadCount, stats.mainThreadTime / 1e6, stats.slowCallCount));
+        }
+        return sb.toString();
+    }
+
+    public static void reset() {
+        for (MethodStats stats : sStats) {
+            synchronized (stats) {
+                stats.reset();
+            }
+        }
+    }
+
+    /**
+     * Start a native call
+     *
+     * @return a value to pass to {@link #end(int, long)}
+     */
+    public static long begin() {
+        return sActive ? System.nanoTime() : NOT_TRACED;
+    }
+
+    /**
+     * End a native call
+     *
+     * @param method one of the traced methods
+     * @param begin  value returned by {@link #begin()}
+     */
+    public static void end(int method, long begin) {
+        if (begin == NOT_TRACED)
+            return;
+        final long duration = System.nanoTime() - begin;
+        NativeMetrics.record(method, duration);
+        if (sEnabled)
+            record(method, duration);
+    }
+
+    private static void record(int method, long duration) {
+        final Thread thread = Thread.currentThread();
+        final boolean mainThread = Looper.getMainLooper().getThread() == thread;
+        final boolean slow = mainThread && duration >= sSlowCallNs;
+        final MethodStats stats = sStats[method];
+        synchronized (stats) {
+            stats.count++;
+            stats.totalTime += duration;
+            stats.maxTime = Math.max(stats.maxTime, duration);
+            if (mainThread) {
+                stats.mainThreadCount++;
+                stats.mainThreadTime += duration;
+            }
+            if (slow)
+                stats.slowCallCount++;
+            stats.lastThread = thread.getName();
+        }
+        if (slow) {
+            final Throwable stack = new Throwable("slow main thread call");
+            Log.w(TAG, String.format(Locale.US, "%s took %.2f ms on the main thread",
+                    NAMES[method], duration / 1e6), stack);
+            final Listener listener = sListener;
+            if (listener != null)
+                listener.onSlowCall(NAMES[method], duration, stack);
+        }
+    }
+}
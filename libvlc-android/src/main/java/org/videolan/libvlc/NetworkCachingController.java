@@ -0,0 +1,289 @@
+/*****************************************************************************
+ * NetworkCachingController.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc;
+
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+
+/**
+ * Closed loop controller of the network caching.
+ * <p>
+ * Each playback is a session observed through {@link MediaPlayer.Event#Buffering} events and
+ * {@link Media.Stats} bitrates. When it ends, the caching of its host is adjusted for the next
+ * open or reconnect: it is increased after stalls or when the input bitrate barely keeps up with
+ * the demux bitrate while buffering, and slowly decreased after smooth sessions with plenty of
+ * bandwidth, to start and seek faster.
+ * <p>
+ * The controller can be attached to a {@link MediaPlayer}, or fed directly with the session
+ * methods, for example from a simulated event and stats feed.
+ */
+public class NetworkCachingController {
+    public static final int DEFAULT_CACHING = 1000;
+    public static final int MIN_CACHING = 300;
+    public static final int MAX_CACHING = 10000;
+    private static final long STATS_INTERVAL_MS = 1000;
+    /* input over demux bitrate ratios */
+    private static final float LOW_BANDWIDTH_RATIO = 1.2f;
+    private static final float HIGH_BANDWIDTH_RATIO = 2f;
+
+    private final SharedPreferences mPrefs;
+    private final HashMap<String, Integer> mHistory = new HashMap<>();
+    private final Handler mHandler;
+
+    private String mHost = null;
+    private int mSessionCaching;
+    private boolean mStarted;
+    private int mStalls;
+    private long mStallStart;
+    private long mStallDuration;
+    private float mBandwidthRatio;
+    private int mBandwidthSamples;
+
+    private MediaPlayer mPlayer = null;
+    /* only used from the main thread */
+    private boolean mSampling = false;
+    private final MediaPlayer.EventObserver mObserver = new MediaPlayer.EventObserver() {
+        @Override
+        public void onEvent(int eventType, long arg1, long arg2, float argf1) {
+            final long now = SystemClock.elapsedRealtime();
+            switch (eventType) {
+                case MediaPlayer.Event.Opening:
+                    beginSession(getPlayerHost(), now);
+                    mHandler.post(mStartSampling);
+                    break;
+                case MediaPlayer.Event.Buffering:
+                    onBuffering(argf1, now);
+                    /* stats are only kept while buffering */
+                    mHandler.post(argf1 < 100f ? mStartSampling : mStopSampling);
+                    break;
+                case MediaPlayer.Event.Playing:
+                    mHandler.post(mStopSampling);
+                    break;
+                case MediaPlayer.Event.Stopped:
+                case MediaPlayer.Event.EndReached:
+                case MediaPlayer.Event.EncounteredError:
+                    endSession(now);
+                    mHandler.post(mStopSampling);
+                    break;
+            }
+        }
+    };
+    private final Runnable mStatsSampler = new Runnable() {
+        @Override
+        public void run() {
+            final MediaPlayer player;
+            synchronized (NetworkCachingController.this) {
+                player = mPlayer;
+            }
+            if (player == null)
+                return;
+            final Media media = player.getMedia();
+            if (media != null) {
+                final Media.Stats stats = media.getStats();
+                if (stats != null)
+                    onStats(stats.inputBitrate, stats.demuxBitrate);
+                media.release();
+            }
+            mHandler.postDelayed(this, STATS_INTERVAL_MS);
+        }
+    };
+    private final Runnable mStartSampling = new Runnable() {
+        @Override
+        public void run() {
+            if (mSampling)
+                return;
+            mSampling = true;
+            mHandler.postDelayed(mStatsSampler, STATS_INTERVAL_MS);
+        }
+    };
+    private final Runnable mStopSampling = new Runnable() {
+        @Override
+        public void run() {
+            mSampling = false;
+            mHandler.removeCallbacks(mStatsSampler);
+        }
+    };
+
+    /**
+     * @param prefs SharedPreferences where the per host history is kept, or null to keep it in
+     *              memory only
+     */
+    public NetworkCachingController(@Nullable SharedPreferences prefs) {
+        this(prefs, new Handler(Looper.getMainLooper()));
+    }
+
+    /**
+     * @param handler Handler of the main thread, or null if the controller is only fed with the
+     *                session methods
+     */
+    NetworkCachingController(@Nullable SharedPreferences prefs, @Nullable Handler handler) {
+        mPrefs = prefs;
+        mHandler = handler;
+    }
+
+    /**
+     * Get the caching to use for the next open of an Uri
+     *
+     * @return caching in ms
+     */
+    public synchronized int getCaching(@Nullable String host) {
+        if (host == null)
+            return DEFAULT_CACHING;
+        Integer caching = mHistory.get(host);
+        if (caching == null && mPrefs != null) {
+            caching = mPrefs.getInt(host, DEFAULT_CACHING);
+            mHistory.put(host, caching);
+        }
+        return caching != null ? caching : DEFAULT_CACHING;
+    }
+
+    /**
+     * Set the network caching of a Media from the history of its host. This should be called
+     * before the Media is played.
+     */
+    public void apply(@NonNull Media media) {
+        final Uri uri = media.getUri();
+        final String host = uri != null ? uri.getHost() : null;
+        if (host != null)
+            media.addOption(":network-caching=" + getCaching(host));
+    }
+
+    /**
+     * Observe the sessions of a MediaPlayer. Stats are sampled from the main thread while the
+     * player is buffering.
+     */
+    @MainThread
+    public void attach(@NonNull MediaPlayer player) {
+        detach();
+        synchronized (this) {
+            mPlayer = player;
+        }
+        player.addEventObserver(mObserver);
+    }
+
+    @MainThread
+    public void detach() {
+        final MediaPlayer player;
+        synchronized (this) {
+            player = mPlayer;
+            mPlayer = null;
+        }
+        if (player != null)
+            player.removeEventObserver(mObserver);
+        mHandler.removeCallbacks(mStartSampling);
+        mHandler.removeCallbacks(mStopSampling);
+        mStopSampling.run();
+    }
+
+    /**
+     * Start a session
+     *
+     * @param host host of the media, or null if the media is not a network one
+     * @param now  SystemClock.elapsedRealtime() time base
+     */
+    public synchronized void beginSession(@Nullable String host, long now) {
+        mHost = host;
+        mSessionCaching = getCaching(host);
+        mStarted = false;
+        mStalls = 0;
+        mStallStart = now;
+        mStallDuration = 0;
+        mBandwidthRatio = 0f;
+        mBandwidthSamples = 0;
+    }
+
+    /**
+     * Feed a buffering percentage. Buffering after the initial one is a stall.
+     */
+    public synchronized void onBuffering(float buffering, long now) {
+        if (mHost == null)
+            return;
+        if (buffering >= 100f) {
+            if (mStarted && mStallStart >= 0)
+                mStallDuration += now - mStallStart;
+            mStarted = true;
+            mStallStart = -1;
+        } else if (mStarted && mStallStart < 0) {
+            mStalls++;
+            mStallStart = now;
+        }
+    }
+
+    /**
+     * Feed bitrates from {@link Media.Stats}. Only the bitrates sampled while buffering are kept:
+     * once the buffer is full, the input is throttled down to the demux bitrate, and their ratio
+     * says nothing about the available bandwidth.
+     */
+    public synchronized void onStats(float inputBitrate, float demuxBitrate) {
+        if (mHost == null || mStallStart < 0 || demuxBitrate <= 0f)
+            return;
+        mBandwidthRatio += inputBitrate / demuxBitrate;
+        mBandwidthSamples++;
+    }
+
+    /**
+     * End the session and update the caching of its host
+     *
+     * @return the caching for the next open of this host, or -1 if there was no session
+     */
+    public synchronized int endSession(long now) {
+        if (mHost == null)
+            return -1;
+        if (mStallStart >= 0 && mStarted)
+            mStallDuration += now - mStallStart;
+        int caching = mSessionCaching;
+        final float ratio = mBandwidthSamples > 0 ? mBandwidthRatio / mBandwidthSamples : -1f;
+        if (mStalls > 0) {
+            /* cover the mean stall, and grow with the stall frequency */
+            caching = (int) (caching * (1f + 0.5f * Math.min(mStalls, 4)) + mStallDuration / mStalls);
+        } else if (ratio >= 0f && ratio < LOW_BANDWIDTH_RATIO) {
+            caching = caching * 5 / 4;
+        } else if (mStarted && ratio >= HIGH_BANDWIDTH_RATIO) {
+            caching = caching * 9 / 10;
+        }
+        caching = Math.max(MIN_CACHING, Math.min(MAX_CACHING, caching));
+        mHistory.put(mHost, caching);
+        if (mPrefs != null)
+            mPrefs.edit().putInt(mHost, caching).apply();
+        mHost = null;
+        return caching;
+    }
+
+    private String getPlayerHost() {
+        final MediaPlayer player;
+        synchronized (this) {
+            player = mPlayer;
+        }
+        /* called while the player is locked, don't retain its media */
+        final Media media = player != null ? player.peekMedia() : null;
+        final Uri uri = media != null ? media.getUri() : null;
+        return uri != null ? uri.getHost() : null;
+    }
+}
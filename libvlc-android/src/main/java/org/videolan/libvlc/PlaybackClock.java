@@ -0,0 +1,211 @@
+/*****************************************************************************
+ * PlaybackClock.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.SystemClock;
+
+import org.videolan.libvlc.util.AndroidUtil;
+
+/**
+ * Java side playback clock of a {@link MediaPlayer}.
+ * <p>
+ * The clock is anchored on each {@link MediaPlayer.Event#TimeChanged} event and extrapolated from
+ * the monotonic clock at the playback rate in between, so that UI animators can read the time at
+ * every frame without any JNI call. The state is an immutable object published through a volatile
+ * field: reads are lock-free and never see a torn state.
+ * <p>
+ * The rate is estimated from the progression of TimeChanged events, since it can be changed
+ * natively; {@link #setRate(float)} resyncs it immediately. Each TimeChanged event measures the
+ * extrapolation error, which is exposed by {@link #getErrorBound()}.
+ */
+public class PlaybackClock {
+    /* minimum wall time between two events to measure the rate */
+    private static final long RATE_MIN_INTERVAL_NS = 100 * 1000000L;
+    private static final float RATE_SMOOTHING = 0.2f;
+    private static final float ERROR_DECAY = 0.9f;
+    /* measured rates out of this range are seeks */
+    private static final float RATE_MIN = 0.1f;
+    private static final float RATE_MAX = 8f;
+
+    private volatile State mState = new State(0, now(), 1f, false, -1, 0);
+    /* last event anchor, used to measure the rate */
+    private long mLastEventTime = -1;
+    private long mLastEventNanos = 0;
+    private boolean mPlaying = false;
+    private boolean mBuffering = false;
+
+    PlaybackClock() {
+    }
+
+    private static class State {
+        final long time;
+        final long nanos;
+        final float rate;
+        final boolean running;
+        final long length;
+        final long errorBound;
+
+        State(long time, long nanos, float rate, boolean running, long length, long errorBound) {
+            this.time = time;
+            this.nanos = nanos;
+            this.rate = rate;
+            this.running = running;
+            this.length = length;
+            this.errorBound = errorBound;
+        }
+
+        long getTime(long now) {
+            if (!running)
+                return time;
+            final long t = time + (long) ((now - nanos) * rate / 1000000f);
+            return length > 0 ? Math.min(t, length) : t;
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
+    private static long now() {
+        return AndroidUtil.isJellyBeanMR2OrLater ? SystemClock.elapsedRealtimeNanos() : System.nanoTime();
+    }
+
+    /**
+     * Get the extrapolated playback time
+     *
+     * @return time in ms
+     */
+    public long getTime() {
+        return mState.getTime(now());
+    }
+
+    /**
+     * Get the extrapolated playback position
+     *
+     * @return position between 0 and 1, or -1 if the length is unknown
+     */
+    public float getPosition() {
+        final State state = mState;
+        if (state.length <= 0)
+            return -1f;
+        return Math.max(0f, Math.min(1f, (float) state.getTime(now()) / state.length));
+    }
+
+    /**
+     * Get the media length, as sent by {@link MediaPlayer.Event#LengthChanged}
+     *
+     * @return length in ms, or -1 if unknown
+     */
+    public long getLength() {
+        return mState.length;
+    }
+
+    /**
+     * @return true if the clock is running (playing and not buffering)
+     */
+    public boolean isRunning() {
+        return mState.running;
+    }
+
+    /**
+     * Get the rate used to extrapolate the time
+     */
+    public float getRate() {
+        return mState.rate;
+    }
+
+    /**
+     * Get the recent extrapolation error, measured at each resync
+     *
+     * @return error bound in ms
+     */
+    public long getErrorBound() {
+        return mState.errorBound;
+    }
+
+    /**
+     * Resync the rate, to be called along with {@link MediaPlayer#setRate(float)}
+     */
+    public synchronized void setRate(float rate) {
+        final State s = mState;
+        final long now = now();
+        mState = new State(s.getTime(now), now, rate, s.running, s.length, s.errorBound);
+    }
+
+    synchronized void onEvent(int eventType, long arg1, float argf1) {
+        final State s = mState;
+        final long now = now();
+        switch (eventType) {
+            case MediaPlayer.Event.MediaChanged:
+                mLastEventTime = -1;
+                mPlaying = mBuffering = false;
+                mState = new State(0, now, s.rate, false, -1, 0);
+                break;
+            case MediaPlayer.Event.Playing:
+                mPlaying = true;
+                setRunning(s, now);
+                break;
+            case MediaPlayer.Event.Buffering:
+                /* the clock is frozen while buffering */
+                mBuffering = argf1 < 100f;
+                setRunning(s, now);
+                break;
+            case MediaPlayer.Event.Paused:
+            case MediaPlayer.Event.Stopped:
+            case MediaPlayer.Event.EndReached:
+            case MediaPlayer.Event.EncounteredError:
+                mPlaying = false;
+                setRunning(s, now);
+                break;
+            case MediaPlayer.Event.LengthChanged:
+                mState = new State(s.getTime(now), now, s.rate, s.running, arg1, s.errorBound);
+                break;
+            case MediaPlayer.Event.TimeChanged:
+                onTimeChanged(s, arg1, now);
+                break;
+        }
+    }
+
+    private void setRunning(State s, long now) {
+        final boolean running = mPlaying && !mBuffering;
+        if (running == s.running)
+            return;
+        mLastEventTime = -1;
+        mState = new State(s.getTime(now), now, s.rate, running, s.length, s.errorBound);
+    }
+
+    private void onTimeChanged(State s, long time, long now) {
+        final long error = s.running ? Math.abs(time - s.getTime(now)) : 0;
+        final long errorBound = Math.max(error, (long) (s.errorBound * ERROR_DECAY));
+        float rate = s.rate;
+        if (s.running && mLastEventTime >= 0 && time > mLastEventTime
+                && now - mLastEventNanos >= RATE_MIN_INTERVAL_NS) {
+            final float measured = (time - mLastEventTime) * 1000000f / (now - mLastEventNanos);
+            if (measured >= RATE_MIN && measured <= RATE_MAX)
+                rate += (measured - rate) * RATE_SMOOTHING;
+        }
+        if (mLastEventTime < 0 || now - mLastEventNanos >= RATE_MIN_INTERVAL_NS || time < mLastEventTime) {
+            mLastEventTime = time;
+            mLastEventNanos = now;
+        }
+        /* a TimeChanged after a seek or while paused doesn't mean the clock runs */
+        mState = new State(time, now, rate, s.running, s.length, errorBound);
+    }
+}
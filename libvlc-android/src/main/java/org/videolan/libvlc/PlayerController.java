@@ -0,0 +1,386 @@
+/*****************************************************************************
+ * PlayerController.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Asynchronous commands of a {@link MediaPlayer}.
+ * <p>
+ * Commands run on a control thread dedicated to the player, so that the calling thread never
+ * blocks on libvlc (stopping a network input can take hundreds of ms). Each command returns a
+ * Future that completes on its event: {@link MediaPlayer.Event#Playing} for {@link #play()},
+ * {@link MediaPlayer.Event#Stopped} for {@link #stop()} and {@link MediaPlayer.Event#MediaChanged}
+ * for {@link #setMedia(Media)}. Commands waiting for an event fail with a
+ * {@link TimeoutException} after {@link #setTimeout(long)}.
+ * <p>
+ * Commands that are not started yet are superseded by the later ones: a play or stop supersedes
+ * the pending play or stop, a setMedia supersedes all the pending commands. Superseded commands
+ * are cancelled, so that play, stop, play only plays once.
+ * <p>
+ * The controller owns the player: it is released by {@link #release()}.
+ */
+public class PlayerController {
+    public static final long DEFAULT_TIMEOUT_MS = 10000;
+
+    private static final int SET_MEDIA = 0;
+    private static final int PLAY = 1;
+    private static final int STOP = 2;
+    private static final int RELEASE = 3;
+
+    private final MediaPlayer mPlayer;
+    private final HandlerThread mThread;
+    private final Handler mControlHandler;
+    private final Handler mTimeoutHandler = new Handler(Looper.getMainLooper());
+    private final Object mLock = new Object();
+    /* commands not started yet, guarded by mLock */
+    private Command mPendingMedia = null;
+    private Command mPendingTransport = null;
+    private Command mPendingRelease = null;
+    /* started commands waiting for their event, guarded by mLock */
+    private final ArrayList<Command> mAwaiting = new ArrayList<>();
+    private volatile long mTimeout = DEFAULT_TIMEOUT_MS;
+    private boolean mReleased = false;
+
+    /**
+     * Future of a command
+     */
+    public static class CommandFuture implements Future<Void> {
+        private boolean mDone = false;
+        private boolean mCancelled = false;
+        private Throwable mError = null;
+
+        CommandFuture() {
+        }
+
+        synchronized boolean complete(Throwable error, boolean cancelled) {
+            if (mDone)
+                return false;
+            mDone = true;
+            mError = error;
+            mCancelled = cancelled;
+            notifyAll();
+            return true;
+        }
+
+        /**
+         * Cancel the command. A started command is not interrupted, but its future doesn't wait
+         * for its event anymore.
+         */
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return complete(null, true);
+        }
+
+        @Override
+        public synchronized boolean isCancelled() {
+            return mCancelled;
+        }
+
+        @Override
+        public synchronized boolean isDone() {
+            return mDone;
+        }
+
+        @Override
+        public synchronized Void get() throws InterruptedException, ExecutionException {
+            while (!mDone)
+                wait();
+            return report();
+        }
+
+        @Override
+        public synchronized Void get(long timeout, @NonNull TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            final long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (!mDone) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0)
+                    throw new TimeoutException();
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return report();
+        }
+
+        private Void report() throws ExecutionException {
+            if (mCancelled)
+                throw new CancellationException();
+            if (mError != null)
+                throw new ExecutionException(mError);
+            return null;
+        }
+    }
+
+    private class Command extends CommandFuture implements Runnable {
+        final int mType;
+        Media mMedia;
+
+        Command(int type, Media media) {
+            if (media != null && !media.retain())
+                throw new IllegalArgumentException("Media is released");
+            mType = type;
+            mMedia = media;
+        }
+
+        void releaseMedia() {
+            final Media media;
+            synchronized (mLock) {
+                media = mMedia;
+                mMedia = null;
+            }
+            if (media != null)
+                media.release();
+        }
+
+        @Override
+        boolean complete(Throwable error, boolean cancelled) {
+            if (!super.complete(error, cancelled))
+                return false;
+            mTimeoutHandler.removeCallbacks(this);
+            return true;
+        }
+
+        /* timeout */
+        @Override
+        public void run() {
+            synchronized (mLock) {
+                if (!mAwaiting.remove(this))
+                    return;
+            }
+            complete(new TimeoutException("no event after " + mTimeout + " ms"), false);
+        }
+    }
+
+    private final MediaPlayer.EventObserver mObserver = new MediaPlayer.EventObserver() {
+        @Override
+        public void onEvent(int eventType, long arg1, long arg2, float argf1) {
+            switch (eventType) {
+                case MediaPlayer.Event.MediaChanged:
+                    completeAwaiting(SET_MEDIA, null, false);
+                    break;
+                case MediaPlayer.Event.Playing:
+                    completeAwaiting(PLAY, null, false);
+                    break;
+                case MediaPlayer.Event.EncounteredError:
+                    completeAwaiting(PLAY, new IllegalStateException("playback error"), false);
+                    break;
+                case MediaPlayer.Event.Stopped:
+                    completeAwaiting(STOP, null, false);
+                    /* stopped before playing */
+                    completeAwaiting(PLAY, null, true);
+                    break;
+            }
+        }
+    };
+
+    private final Runnable mDrain = new Runnable() {
+        @Override
+        public void run() {
+            while (true) {
+                final Command command;
+                synchronized (mLock) {
+                    if (mPendingMedia != null) {
+                        command = mPendingMedia;
+                        mPendingMedia = null;
+                    } else if (mPendingTransport != null) {
+                        command = mPendingTransport;
+                        mPendingTransport = null;
+                    } else if (mPendingRelease != null) {
+                        command = mPendingRelease;
+                        mPendingRelease = null;
+                    } else
+                        return;
+                    if (!command.isDone() && command.mType != RELEASE)
+                        mAwaiting.add(command);
+                }
+                if (command.isDone() && command.mType != RELEASE)
+                    command.releaseMedia();
+                else
+                    execute(command);
+            }
+        }
+    };
+
+    /**
+     * @param player the player to control, released by {@link #release()}
+     */
+    public PlayerController(@NonNull MediaPlayer player) {
+        mPlayer = player;
+        mThread = new HandlerThread("VLC/PlayerControl");
+        mThread.start();
+        mControlHandler = new Handler(mThread.getLooper());
+        mPlayer.addEventObserver(mObserver);
+    }
+
+    /**
+     * Get the controlled player, for the calls that don't block
+     */
+    @NonNull
+    public MediaPlayer getMediaPlayer() {
+        return mPlayer;
+    }
+
+    /**
+     * Set how long a command waits for its event
+     *
+     * @param timeout time in ms
+     */
+    public void setTimeout(long timeout) {
+        mTimeout = timeout;
+    }
+
+    /**
+     * Set a Media, retained until the command is done
+     */
+    @NonNull
+    public Future<Void> setMedia(@Nullable Media media) {
+        return enqueue(new Command(SET_MEDIA, media));
+    }
+
+    @NonNull
+    public Future<Void> play() {
+        return enqueue(new Command(PLAY, null));
+    }
+
+    @NonNull
+    public Future<Void> stop() {
+        return enqueue(new Command(STOP, null));
+    }
+
+    /**
+     * Cancel all pending commands, then release the player and stop the control thread
+     */
+    @NonNull
+    public Future<Void> release() {
+        return enqueue(new Command(RELEASE, null));
+    }
+
+    private Command enqueue(Command command) {
+        synchronized (mLock) {
+            if (mReleased) {
+                command.complete(new IllegalStateException("PlayerController is released"), false);
+                command.releaseMedia();
+                return command;
+            }
+            switch (command.mType) {
+                case RELEASE:
+                    mReleased = true;
+                    mPendingRelease = command;
+                    supersede(mPendingMedia);
+                    mPendingMedia = null;
+                    supersede(mPendingTransport);
+                    mPendingTransport = null;
+                    break;
+                case SET_MEDIA:
+                    supersede(mPendingMedia);
+                    mPendingMedia = command;
+                    supersede(mPendingTransport);
+                    mPendingTransport = null;
+                    break;
+                default:
+                    supersede(mPendingTransport);
+                    mPendingTransport = command;
+                    break;
+            }
+        }
+        mControlHandler.post(mDrain);
+        return command;
+    }
+
+    /* called with mLock held */
+    private void supersede(Command command) {
+        if (command == null)
+            return;
+        command.complete(null, true);
+        final Media media = command.mMedia;
+        command.mMedia = null;
+        if (media != null)
+            media.release();
+    }
+
+    private void completeAwaiting(int type, Throwable error, boolean cancelled) {
+        synchronized (mLock) {
+            for (int i = mAwaiting.size() - 1; i >= 0; --i) {
+                final Command command = mAwaiting.get(i);
+                if (command.mType == type) {
+                    mAwaiting.remove(i);
+                    command.complete(error, cancelled);
+                }
+            }
+        }
+    }
+
+    private void execute(Command command) {
+        try {
+            switch (command.mType) {
+                case SET_MEDIA:
+                    mPlayer.setMedia(command.mMedia);
+                    command.releaseMedia();
+                    /* the event is sent synchronously, unless the Media didn't change */
+                    completeAwaiting(SET_MEDIA, null, false);
+                    break;
+                case PLAY:
+                    if (mPlayer.isPlaying()) {
+                        completeAwaiting(PLAY, null, false);
+                        break;
+                    }
+                    mTimeoutHandler.postDelayed(command, mTimeout);
+                    mPlayer.play();
+                    break;
+                case STOP:
+                    mPlayer.stop();
+                    /* no event if the player was already stopped */
+                    completeAwaiting(STOP, null, false);
+                    completeAwaiting(PLAY, null, true);
+                    break;
+                case RELEASE:
+                    mPlayer.removeEventObserver(mObserver);
+                    synchronized (mLock) {
+                        for (Command awaiting : mAwaiting)
+                            awaiting.complete(null, true);
+                        mAwaiting.clear();
+                    }
+                    mPlayer.release();
+                    command.complete(null, false);
+                    mThread.quit();
+                    break;
+            }
+        } catch (RuntimeException e) {
+            synchronized (mLock) {
+                mAwaiting.remove(command);
+            }
+            command.releaseMedia();
+            command.complete(e, false);
+        }
+    }
+}
@@ -0,0 +1,357 @@
+/*****************************************************************************
+ * PlayerPool.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.videolan.libvlc.util.VLCVideoLayout;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pool of warm MediaPlayers for fast channel zapping.
+ * <p>
+ * All the players are created once. One of them is visible: it owns the video layout and plays
+ * with sound. The others preload the neighboring channels: their input is opened and buffered,
+ * with the volume at 0 and the video track disabled, so that they don't hold video decoders. A zap
+ * to a preloaded channel only moves the video layout to its player and restores its sound and
+ * video, without any new player, option setup or network open.
+ * <p>
+ * The number of players caps the number of inputs and decoders running at the same time. The
+ * time from a zap request to the first picture (or the first time update for audio only channels)
+ * is measured.
+ * <p>
+ * This class must be used from the main thread.
+ */
+public class PlayerPool implements MemoryGovernor.Sheddable {
+    private static final int VOLUME = 100;
+
+    private final LibVLC mLibVLC;
+    private final Slot[] mSlots;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private Slot mVisible = null;
+    private VLCVideoLayout mVideoLayout = null;
+    private boolean mTextureView = false;
+    private Listener mListener = null;
+    private long mZapStart = -1;
+    private long mLastZapTime = -1;
+    private boolean mReleased = false;
+
+    /**
+     * Listener notified from the main thread
+     */
+    public interface Listener {
+        /**
+         * A zap is complete
+         *
+         * @param player    the visible player
+         * @param zapTime   time from the zap request to the first picture, in ms
+         * @param preloaded true if the channel was preloaded
+         */
+        void onZapped(MediaPlayer player, long zapTime, boolean preloaded);
+    }
+
+    private class Slot implements MediaPlayer.EventObserver {
+        final MediaPlayer mPlayer;
+        Uri mUri = null;
+        long mLastUsed = 0;
+        boolean mPreloaded = false;
+
+        Slot(LibVLC libVLC) {
+            mPlayer = new MediaPlayer(libVLC);
+            mPlayer.addEventObserver(this);
+        }
+
+        @Override
+        public void onEvent(int eventType, long arg1, long arg2, float argf1) {
+            switch (eventType) {
+                case MediaPlayer.Event.Vout:
+                    if (arg1 != 0)
+                        postSlotEvent(eventType);
+                    break;
+                case MediaPlayer.Event.Playing:
+                case MediaPlayer.Event.ESAdded:
+                case MediaPlayer.Event.TimeChanged:
+                    postSlotEvent(eventType);
+                    break;
+            }
+        }
+
+        private void postSlotEvent(final int eventType) {
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    onSlotEvent(Slot.this, eventType);
+                }
+            });
+        }
+    }
+
+    /**
+     * @param libVLC   a valid LibVLC
+     * @param capacity number of players, including the visible one
+     */
+    @MainThread
+    public PlayerPool(@NonNull LibVLC libVLC, int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity should be at least 1");
+        mLibVLC = libVLC;
+        mSlots = new Slot[capacity];
+        for (int i = 0; i < capacity; ++i)
+            mSlots[i] = new Slot(libVLC);
+    }
+
+    @MainThread
+    public void setListener(@Nullable Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Set the layout where the visible player is displayed
+     */
+    @MainThread
+    public void setVideoLayout(@Nullable VLCVideoLayout layout, boolean textureView) {
+        if (mVisible != null && mVideoLayout != null)
+            mVisible.mPlayer.detachViews();
+        mVideoLayout = layout;
+        mTextureView = textureView;
+        if (mVisible != null && mVideoLayout != null)
+            mVisible.mPlayer.attachViews(mVideoLayout, null, true, mTextureView);
+    }
+
+    /**
+     * Get the visible player
+     *
+     * @return the player, or null before the first zap
+     */
+    @Nullable
+    @MainThread
+    public MediaPlayer getMediaPlayer() {
+        return mVisible != null ? mVisible.mPlayer : null;
+    }
+
+    /**
+     * Get the time of the last zap, from the request to the first picture
+     *
+     * @return time in ms, or -1 if unknown
+     */
+    @MainThread
+    public long getLastZapTime() {
+        return mLastZapTime;
+    }
+
+    /**
+     * Show a channel, instantly if it was preloaded
+     *
+     * @return the visible player
+     */
+    @NonNull
+    @MainThread
+    public MediaPlayer zap(@NonNull Uri uri) {
+        if (mReleased)
+            throw new IllegalStateException("PlayerPool is released");
+        mZapStart = SystemClock.elapsedRealtime();
+        Slot slot = find(uri);
+        if (slot == null) {
+            slot = getFreeSlot(null);
+            start(slot, uri, false);
+        } else if (slot != mVisible && !slot.mPreloaded) {
+            /* its preload is still pending */
+            start(slot, uri, false);
+        }
+        promote(slot);
+        return slot.mPlayer;
+    }
+
+    /**
+     * Preload channels, typically the neighbors of the visible one. Channels that don't fit in
+     * the pool are ignored, and preloaded channels that are not listed anymore are stopped.
+     */
+    @MainThread
+    public void preload(@NonNull List<Uri> uris) {
+        if (mReleased)
+            return;
+        for (Slot slot : mSlots) {
+            if (slot != mVisible && slot.mUri != null && !uris.contains(slot.mUri)) {
+                slot.mPlayer.stop();
+                slot.mUri = null;
+                slot.mPreloaded = false;
+            }
+        }
+        for (final Uri uri : uris) {
+            if (find(uri) != null)
+                continue;
+            final Slot slot = getFreeSlot(uris);
+            if (slot == null)
+                break;
+            /* let the visible channel start first */
+            slot.mUri = uri;
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!mReleased && slot != mVisible && uri.equals(slot.mUri))
+                        start(slot, uri, true);
+                }
+            });
+        }
+    }
+
+    @MainThread
+    public void preload(@NonNull Uri... uris) {
+        preload(Arrays.asList(uris));
+    }
+
+    /**
+     * Stop and release all the players
+     */
+    @MainThread
+    public void release() {
+        if (mReleased)
+            return;
+        mReleased = true;
+        mHandler.removeCallbacksAndMessages(null);
+        for (Slot slot : mSlots) {
+            slot.mPlayer.removeEventObserver(slot);
+            if (slot == mVisible && mVideoLayout != null)
+                slot.mPlayer.detachViews();
+            slot.mPlayer.stop();
+            slot.mPlayer.release();
+        }
+        mVisible = null;
+    }
+
+    /**
+     * Stop the preloads from {@link MemoryGovernor#SHED_IDLE}, the players are kept. Called from
+     * another thread, the preloads are stopped later on the main thread.
+     */
+    @Override
+    public long shed(final int level) {
+        if (level < MemoryGovernor.SHED_IDLE)
+            return 0;
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    shed(level);
+                }
+            });
+            return 0;
+        }
+        if (mReleased)
+            return 0;
+        for (Slot slot : mSlots) {
+            if (slot != mVisible && slot.mUri != null) {
+                slot.mPlayer.stop();
+                slot.mUri = null;
+                slot.mPreloaded = false;
+            }
+        }
+        return 0;
+    }
+
+    private Slot find(Uri uri) {
+        for (Slot slot : mSlots) {
+            if (uri.equals(slot.mUri))
+                return slot;
+        }
+        return null;
+    }
+
+    /**
+     * Get the least recently used slot that is not visible, nor preloading a wanted channel
+     */
+    private Slot getFreeSlot(List<Uri> wanted) {
+        Slot free = null;
+        for (Slot slot : mSlots) {
+            if (slot == mVisible && mSlots.length > 1)
+                continue;
+            if (wanted != null && (slot == mVisible || (slot.mUri != null && wanted.contains(slot.mUri))))
+                continue;
+            if (free == null || slot.mLastUsed < free.mLastUsed)
+                free = slot;
+        }
+        return free;
+    }
+
+    private void start(Slot slot, Uri uri, boolean hidden) {
+        slot.mUri = uri;
+        slot.mPreloaded = hidden;
+        final Media media = new Media(mLibVLC, uri);
+        slot.mPlayer.setMedia(media);
+        media.release();
+        /* the audio output of a player exists before play(): hidden players start silent instead
+         * of waiting for their Playing event */
+        slot.mPlayer.setVolume(hidden ? 0 : VOLUME);
+        slot.mPlayer.play();
+    }
+
+    private void promote(Slot slot) {
+        final Slot previous = mVisible;
+        if (previous != null && previous != slot) {
+            if (mVideoLayout != null)
+                previous.mPlayer.detachViews();
+            previous.mPlayer.stop();
+            previous.mUri = null;
+            previous.mPreloaded = false;
+        }
+        mVisible = slot;
+        slot.mLastUsed = SystemClock.elapsedRealtime();
+        if (previous != slot && mVideoLayout != null)
+            slot.mPlayer.attachViews(mVideoLayout, null, true, mTextureView);
+        slot.mPlayer.setVolume(VOLUME);
+        /* the video track is enabled back once the surfaces are ready */
+        slot.mPlayer.setVideoTrackEnabled(true);
+    }
+
+    private void onSlotEvent(Slot slot, int eventType) {
+        if (mReleased)
+            return;
+        if (slot != mVisible) {
+            /* keep hidden players silent and without video decoder */
+            if (slot.mUri != null && (eventType == MediaPlayer.Event.Playing
+                    || eventType == MediaPlayer.Event.ESAdded)) {
+                slot.mPlayer.setVolume(0);
+                if (slot.mPlayer.getVideoTrack() != -1)
+                    slot.mPlayer.setVideoTrackEnabled(false);
+            }
+            return;
+        }
+        if (mZapStart < 0)
+            return;
+        final boolean hasVideo = slot.mPlayer.getVideoTracksCount() > 0;
+        if (eventType == MediaPlayer.Event.Vout
+                || (eventType == MediaPlayer.Event.TimeChanged && !hasVideo)) {
+            mLastZapTime = SystemClock.elapsedRealtime() - mZapStart;
+            mZapStart = -1;
+            if (mListener != null)
+                mListener.onZapped(slot.mPlayer, mLastZapTime, slot.mPreloaded);
+            slot.mPreloaded = false;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*****************************************************************************
+ * PlayerState.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc;
+
+/**
+ * Mutable snapshot of a {@link MediaPlayer} state, filled by {@link MediaPlayer#snapshot(PlayerState)}.
+ * <p>
+ * A UI can keep one instance per player and refresh it at every frame without allocating.
+ */
+public class PlayerState {
+    /**
+     * time in ms
+     */
+    public long time;
+    /**
+     * length in ms, -1 if unknown
+     */
+    public long length;
+    /**
+     * position between 0 and 1, -1 if unknown
+     */
+    public float position;
+    public float rate;
+    public int volume;
+    /**
+     * true while opening or playing, buffering included, like {@link MediaPlayer#isPlaying()}
+     */
+    public boolean playing;
+    public boolean seekable;
+    public boolean pausable;
+    /**
+     * see {@link Media.State}
+     */
+    public int state;
+    /**
+     * selected audio track ID, -1 if none
+     */
+    public int audioTrack;
+    /**
+     * selected spu track ID, -1 if none
+     */
+    public int spuTrack;
+}
@@ -0,0 +1,96 @@
+/*****************************************************************************
+ * PlayerStateCache.java  
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc;
+
+/**
+ * State of a {@link MediaPlayer} followed from its events, so that
+ * {@link MediaPlayer#snapshot(PlayerState)} doesn't need JNI calls to read it.
+ */
+final class PlayerStateCache {
+    private int mState = Media.State.NothingSpecial;
+    private boolean mSeekable = false;
+    private boolean mPausable = false;
+    private int mAudioTrack = -1;
+    private int mSpuTrack = -1;
+
+    /**
+     * Update the state from a player event
+     */
+    synchronized void onEvent(int eventType, long arg1, long arg2) {
+        switch (eventType) {
+            case MediaPlayer.Event.MediaChanged:
+                mState = Media.State.NothingSpecial;
+                mSeekable = mPausable = false;
+                mAudioTrack = mSpuTrack = -1;
+                break;
+            case MediaPlayer.Event.Opening:
+                mState = Media.State.Opening;
+                break;
+            case MediaPlayer.Event.Playing:
+                mState = Media.State.Playing;
+                break;
+            case MediaPlayer.Event.Paused:
+                mState = Media.State.Paused;
+                break;
+            case MediaPlayer.Event.Stopped:
+                mState = Media.State.Stopped;
+                mAudioTrack = mSpuTrack = -1;
+                break;
+            case MediaPlayer.Event.EndReached:
+                mState = Media.State.Ended;
+                break;
+            case MediaPlayer.Event.EncounteredError:
+                mState = Media.State.Error;
+                break;
+            case MediaPlayer.Event.SeekableChanged:
+                mSeekable = arg1 != 0;
+                break;
+            case MediaPlayer.Event.PausableChanged:
+                mPausable = arg1 != 0;
+                break;
+            case MediaPlayer.Event.ESSelected:
+                if (arg1 == Media.Track.Type.Audio)
+                    mAudioTrack = (int) arg2;
+                else if (arg1 == Media.Track.Type.Text)
+                    mSpuTrack = (int) arg2;
+                break;
+            case MediaPlayer.Event.ESDeleted:
+                if (arg1 == Media.Track.Type.Audio && mAudioTrack == arg2)
+                    mAudioTrack = -1;
+                else if (arg1 == Media.Track.Type.Text && mSpuTrack == arg2)
+                    mSpuTrack = -1;
+                break;
+        }
+    }
+
+    /**
+     * Fill the state, playing, seekable, pausable and track fields of a PlayerState
+     */
+    synchronized void fill(PlayerState state) {
+        state.state = mState;
+        /* libvlc 3 has no buffering state anymore: buffering happens while Opening or Playing */
+        state.playing = mState == Media.State.Opening || mState == Media.State.Playing;
+        state.seekable = mSeekable;
+        state.pausable = mPausable;
+        state.audioTrack = mAudioTrack;
+        state.spuTrack = mSpuTrack;
+    }
+}
@@ -0,0 +1,205 @@
+/*****************************************************************************
+ * ReleaseReaper.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc;
+
+import android.util.Log;
+
+import java.util.ArrayDeque;
+
+/**
+ * Background release of native objects.
+ * <p>
+ * Once enabled, the last {@link VLCObject#release()} of a {@link Media}, {@link MediaList} or
+ * {@link MediaDiscoverer} only marks it as released, and its native release is queued to a
+ * background thread, where queued objects are released in batches. Releasing a big MediaList or
+ * a MediaBrowser from the main thread then doesn't wait for one JNI call per contained Media.
+ * <p>
+ * The queue depth is bounded: when it is full, objects are released synchronously by the caller.
+ * Queued objects retain their {@link LibVLC}, so that it outlives their native release.
+ */
+public final class ReleaseReaper {
+    private static final String TAG = "LibVLC/ReleaseReaper";
+    public static final int DEFAULT_MAX_DEPTH = 1024;
+    private static final int BATCH_SIZE = 64;
+
+    private static volatile boolean sEnabled = false;
+    private static final Object sLock = new Object();
+    /* guarded by sLock */
+    private static final ArrayDeque<VLCObject<?>> sQueue = new ArrayDeque<>();
+    private static int sMaxDepth = DEFAULT_MAX_DEPTH;
+    private static Thread sThread = null;
+    private static boolean sBusy = false;
+    private static int sMaxBacklog = 0;
+    private static long sReapedCount = 0;
+    private static long sBatchCount = 0;
+    private static long sOverflowCount = 0;
+
+    private ReleaseReaper() {
+    }
+
+    /**
+     * Enable or disable the background release. Objects already queued are still released.
+     */
+    public static void setEnabled(boolean enabled) {
+        synchronized (sLock) {
+            if (enabled && sThread == null) {
+                sThread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        reap();
+                    }
+                }, "VLC/ReleaseReaper");
+                sThread.setDaemon(true);
+                sThread.start();
+            }
+            sEnabled = enabled;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Set the maximum number of queued objects
+     */
+    public static void setMaxDepth(int maxDepth) {
+        synchronized (sLock) {
+            sMaxDepth = Math.max(1, maxDepth);
+        }
+    }
+
+    /**
+     * Get the number of objects queued or being released
+     */
+    public static int getBacklog() {
+        synchronized (sLock) {
+            return sQueue.size() + (sBusy ? 1 : 0);
+        }
+    }
+
+    /**
+     * Get the highest number of queued objects
+     */
+    public static int getMaxBacklog() {
+        synchronized (sLock) {
+            return sMaxBacklog;
+        }
+    }
+
+    /**
+     * Get the number of objects released in the background
+     */
+    public static long getReapedCount() {
+        synchronized (sLock) {
+            return sReapedCount;
+        }
+    }
+
+    /**
+     * Get the number of batches released in the background
+     */
+    public static long getBatchCount() {
+        synchronized (sLock) {
+            return sBatchCount;
+        }
+    }
+
+    /**
+     * Get the number of objects released synchronously because the queue was full
+     */
+    public static long getOverflowCount() {
+        synchronized (sLock) {
+            return sOverflowCount;
+        }
+    }
+
+    /**
+     * Wait until all the queued objects are released
+     */
+    public static void flush() throws InterruptedException {
+        synchronized (sLock) {
+            while (!sQueue.isEmpty() || sBusy)
+                sLock.wait();
+        }
+    }
+
+    /**
+     * Queue the native release of an object
+     *
+     * @return false if the caller should release it synchronously
+     */
+    static boolean offer(VLCObject<?> object) {
+        if (!sEnabled)
+            return false;
+        synchronized (sLock) {
+            /* objects released by a queued one are released in the same batch */
+            if (Thread.currentThread() == sThread)
+                return false;
+            if (sQueue.size() >= sMaxDepth) {
+                sOverflowCount++;
+                return false;
+            }
+            /* released after the object, see reap() */
+            if (object.mLibVLC != null && !object.mLibVLC.retain())
+                return false;
+            sQueue.add(object);
+            sMaxBacklog = Math.max(sMaxBacklog, sQueue.size());
+            sLock.notifyAll();
+        }
+        return true;
+    }
+
+    private static void reap() {
+        final VLCObject<?>[] batch = new VLCObject<?>[BATCH_SIZE];
+        while (true) {
+            int count = 0;
+            synchronized (sLock) {
+                sBusy = false;
+                sLock.notifyAll();
+                while (sQueue.isEmpty()) {
+                    try {
+                        sLock.wait();
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+                while (count < BATCH_SIZE && !sQueue.isEmpty())
+                    batch[count++] = sQueue.poll();
+                sBusy = true;
+            }
+            for (int i = 0; i < count; ++i) {
+                final VLCObject<?> object = batch[i];
+                batch[i] = null;
+                try {
+                    object.releaseNative();
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "release of " + object.getClass().getSimpleName() + " failed", e);
+                }
+                if (object.mLibVLC != null)
+                    object.mLibVLC.release();
+            }
+            synchronized (sLock) {
+                sReapedCount += count;
+                sBatchCount++;
+            }
+        }
+    }
+}
@@ -0,0 +1,388 @@
+/*****************************************************************************
+ * ScrubSession.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Seekbar scrubbing session.
+ * <p>
+ * While dragging, at most one seek is in flight: the requests received meanwhile are coalesced,
+ * and only the latest target is sought once the previous seek completes. These seeks are fast
+ * ones, that may land on a keyframe before the target, if the backend has fast seeks.
+ * {@link #end()} finishes with one precise seek to the last target.
+ * <p>
+ * Seeks are issued through a {@link SeekBackend}, a {@link MediaPlayer} one for sessions created
+ * with {@link MediaPlayer#startScrub()}, or any other one (a fake for tests...) that reports its
+ * completions with {@link #onSeekCompleted(int)}.
+ * <p>
+ * This class must be used from the thread that created it, that should have a Looper.
+ */
+public class ScrubSession {
+    /* a seek that doesn't complete in time doesn't hold the next ones */
+    private static final long SEEK_TIMEOUT_MS = 1000;
+
+    private final SeekBackend mBackend;
+    private final Scheduler mScheduler;
+    private Listener mListener = null;
+
+    private long mTarget = -1;
+    private boolean mInFlight = false;
+    private boolean mInFlightFast = false;
+    /* id of the last seek issued */
+    private int mSeek = 0;
+    private long mLastIssued = -1;
+    private long mIssueTime = 0;
+    private boolean mEnded = false;
+    private boolean mFinished = false;
+
+    /* metrics */
+    private int mRequestCount = 0;
+    private int mFastSeekCount = 0;
+    private int mCompletedCount = 0;
+    private long mTotalLatency = 0;
+    private long mMaxLatency = 0;
+    private long mEndTime = -1;
+    private long mFinalLatency = -1;
+
+    /**
+     * Seeks of a session
+     */
+    public interface SeekBackend {
+        /**
+         * Start a seek. {@link ScrubSession#onSeekCompleted(int)} should be called with its id
+         * once it's done.
+         *
+         * @param seek id of the seek
+         * @param time target in ms
+         * @param fast true for a fast seek, that may land on a keyframe before the target. Backends
+         *             without fast seeks ignore it.
+         */
+        void seek(int seek, long time, boolean fast);
+    }
+
+    public interface Listener {
+        /**
+         * The final precise seek is done, or the session was cancelled
+         */
+        void onScrubEnded(ScrubSession session);
+    }
+
+    /**
+     * Clock and task queue of a session, on the thread of the session
+     */
+    interface Scheduler {
+        long now();
+
+        void post(Runnable runnable, long delay);
+
+        void cancel(Runnable runnable);
+    }
+
+    private static class HandlerScheduler implements Scheduler {
+        private final Handler mHandler;
+
+        HandlerScheduler(Looper looper) {
+            mHandler = new Handler(looper);
+        }
+
+        @Override
+        public long now() {
+            return SystemClock.elapsedRealtime();
+        }
+
+        @Override
+        public void post(Runnable runnable, long delay) {
+            mHandler.postDelayed(runnable, delay);
+        }
+
+        @Override
+        public void cancel(Runnable runnable) {
+            mHandler.removeCallbacks(runnable);
+        }
+    }
+
+    private final Runnable mTimeoutRunnable = new Runnable() {
+        @Override
+        public void run() {
+            complete(mSeek);
+        }
+    };
+
+    public ScrubSession(@NonNull SeekBackend backend) {
+        this(backend, new HandlerScheduler(Looper.myLooper() != null ? Looper.myLooper()
+                : Looper.getMainLooper()));
+    }
+
+    ScrubSession(@NonNull SeekBackend backend, @NonNull Scheduler scheduler) {
+        mBackend = backend;
+        mScheduler = scheduler;
+    }
+
+    public void setListener(@Nullable Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Request a seek while dragging
+     *
+     * @param time target in ms
+     */
+    public void seekTo(long time) {
+        if (mEnded)
+            throw new IllegalStateException("ScrubSession is ended");
+        mRequestCount++;
+        mTarget = Math.max(0, time);
+        if (!mInFlight)
+            issue(true);
+    }
+
+    /**
+     * End the session with a precise seek to the last target
+     */
+    public void end() {
+        if (mEnded)
+            return;
+        mEnded = true;
+        mEndTime = mScheduler.now();
+        if (mTarget < 0)
+            mTarget = mLastIssued;
+        if (mTarget < 0) {
+            finish();
+            return;
+        }
+        if (!mInFlight)
+            issue(false);
+    }
+
+    /**
+     * End the session without the final seek
+     */
+    public void cancel() {
+        if (mFinished)
+            return;
+        mEnded = true;
+        mTarget = -1;
+        finish();
+    }
+
+    /**
+     * Report the completion of a seek, from any thread. The completions of seeks that timed out
+     * are ignored.
+     *
+     * @param seek id given to {@link SeekBackend#seek(int, long, boolean)}
+     */
+    public void onSeekCompleted(final int seek) {
+        mScheduler.post(new Runnable() {
+            @Override
+            public void run() {
+                complete(seek);
+            }
+        }, 0);
+    }
+
+    public boolean isEnded() {
+        return mEnded;
+    }
+
+    /**
+     * Get the number of seeks requested with {@link #seekTo(long)}
+     */
+    public int getRequestCount() {
+        return mRequestCount;
+    }
+
+    /**
+     * Get the number of fast seeks issued while dragging
+     */
+    public int getSeekCount() {
+        return mFastSeekCount;
+    }
+
+    /**
+     * Get the number of requests coalesced with a later one, and never issued
+     */
+    public int getCoalescedCount() {
+        return mRequestCount - mFastSeekCount;
+    }
+
+    /**
+     * Get the mean time from the issue to the completion of a seek
+     *
+     * @return latency in ms, or -1 if no seek completed
+     */
+    public long getAverageLatency() {
+        return mCompletedCount > 0 ? mTotalLatency / mCompletedCount : -1;
+    }
+
+    /**
+     * Get the longest time from the issue to the completion of a seek
+     *
+     * @return latency in ms
+     */
+    public long getMaxLatency() {
+        return mMaxLatency;
+    }
+
+    /**
+     * Get the time from {@link #end()} to the completion of the precise seek
+     *
+     * @return latency in ms, or -1 if not finished
+     */
+    public long getFinalLatency() {
+        return mFinalLatency;
+    }
+
+    private void issue(boolean fast) {
+        final long time = mTarget;
+        mTarget = -1;
+        mInFlight = true;
+        mInFlightFast = fast;
+        mLastIssued = time;
+        mIssueTime = mScheduler.now();
+        if (fast)
+            mFastSeekCount++;
+        mSeek++;
+        mScheduler.post(mTimeoutRunnable, SEEK_TIMEOUT_MS);
+        mBackend.seek(mSeek, time, fast);
+    }
+
+    private void complete(int seek) {
+        if (!mInFlight || mFinished || seek != mSeek)
+            return;
+        mScheduler.cancel(mTimeoutRunnable);
+        final long now = mScheduler.now();
+        final long latency = now - mIssueTime;
+        mInFlight = false;
+        mCompletedCount++;
+        mTotalLatency += latency;
+        mMaxLatency = Math.max(mMaxLatency, latency);
+        if (mEnded && !mInFlightFast) {
+            mFinalLatency = now - mEndTime;
+            finish();
+        } else if (mTarget >= 0)
+            issue(!mEnded);
+    }
+
+    private void finish() {
+        mFinished = true;
+        mScheduler.cancel(mTimeoutRunnable);
+        onFinished();
+        if (mListener != null)
+            mListener.onScrubEnded(this);
+    }
+
+    void onFinished() {
+    }
+
+    /**
+     * Session seeking a MediaPlayer.
+     * <p>
+     * All the seeks are time seeks: libvlc 3 has no fast seek once the input is opened,
+     * {@link MediaPlayer#setPosition(float)} is as precise as {@link MediaPlayer#setTime(long)}, and
+     * the ":input-fast-seek" option only applies to a new input. The session still coalesces the
+     * seeks requested while dragging.
+     * <p>
+     * A seek is complete on the first {@link MediaPlayer.Event#TimeChanged} that jumps away from
+     * the time before the seek, or that reaches the target when it's too close to tell.
+     */
+    static class PlayerSession extends ScrubSession {
+        private final PlayerBackend mPlayerBackend;
+
+        PlayerSession(MediaPlayer player) {
+            this(new PlayerBackend(player));
+        }
+
+        private PlayerSession(PlayerBackend backend) {
+            super(backend);
+            mPlayerBackend = backend;
+            backend.mSession = this;
+            backend.mPlayer.addEventObserver(backend);
+        }
+
+        @Override
+        void onFinished() {
+            mPlayerBackend.mPlayer.removeEventObserver(mPlayerBackend);
+        }
+    }
+
+    private static class PlayerBackend implements SeekBackend, MediaPlayer.EventObserver {
+        /* time updates within this distance of the playback progression are not seeks */
+        private static final long JUMP_SLACK_MS = 500;
+        private static final long TOLERANCE_MS = 1000;
+
+        /**
+         * A seek in flight
+         */
+        private static class Pending {
+            final int seek;
+            final long target;
+            final long from;
+            final long issueTime;
+
+            Pending(int seek, long target, long from, long issueTime) {
+                this.seek = seek;
+                this.target = target;
+                this.from = from;
+                this.issueTime = issueTime;
+            }
+
+            boolean isCompletedBy(long time, long now) {
+                /* the playback may have gone on since the seek was issued */
+                final long progress = now - issueTime + JUMP_SLACK_MS;
+                if (Math.abs(target - from) > progress)
+                    return time < from - JUMP_SLACK_MS || time > from + progress;
+                return Math.abs(time - target) <= TOLERANCE_MS;
+            }
+        }
+
+        private final MediaPlayer mPlayer;
+        private ScrubSession mSession;
+        private final AtomicReference<Pending> mPending = new AtomicReference<>();
+
+        PlayerBackend(MediaPlayer player) {
+            mPlayer = player;
+        }
+
+        @Override
+        public void seek(int seek, long time, boolean fast) {
+            mPending.set(new Pending(seek, time, mPlayer.getPlaybackClock().getTime(), SystemClock.elapsedRealtime()));
+            mPlayer.setTime(time);
+        }
+
+        @Override
+        public void onEvent(int eventType, long arg1, long arg2, float argf1) {
+            if (eventType != MediaPlayer.Event.TimeChanged)
+                return;
+            final Pending pending = mPending.get();
+            if (pending != null && pending.isCompletedBy(arg1, SystemClock.elapsedRealtime())
+                    && mPending.compareAndSet(pending, null))
+                mSession.onSeekCompleted(pending.seek);
+        }
+    }
+}
@@ -94,15 +94,25 @@ abstract class VLCObject<T extends VLCEvent> {
             if (refCount == 0)
                 setEventListener(null);
         }
-        if (refCount == 0) {
-            // detach events when not synchronized since onEvent is executed synchronized
-            nativeDetachEvents();
-            synchronized (this) {
-                onReleaseNative();
-            }
+        if (refCount == 0 && !(isReapable() && ReleaseReaper.offer(this)))
+            releaseNative();
+    }
+
+    final void releaseNative() {
+        // detach events when not synchronized since onEvent is executed synchronized
+        nativeDetachEvents();
+        synchronized (this) {
+            onReleaseNative();
         }
     }
 
+    /**
+     * Returns true if the native release can be done in the background, see {@link ReleaseReaper}
+     */
+    boolean isReapable() {
+        return false;
+    }
+
     @Override
     protected synchronized void finalize() {
         if (!isReleased())
@@ -34,6 +34,7 @@ import android.view.SurfaceHolder;
 
 import org.videolan.libvlc.LibVLC;
 import org.videolan.libvlc.Media;
+import org.videolan.libvlc.util.LibVLCProvider;
 
 import java.io.FileDescriptor;
 import java.io.IOException;
@@ -69,8 +70,17 @@ public class MediaPlayer {
     private Media mCurrentMedia = null;
     private org.videolan.libvlc.MediaPlayer mMediaPlayer;
 
+    /**
+     * @deprecated a Context is needed to create LibVLC, use {@link #MediaPlayer(Context)}
+     * @throws UnsupportedOperationException always
+     */
+    @Deprecated
     public MediaPlayer() {
-        mLibVLC = new LibVLC(null); //FIXME, this is wrong
+        throw new UnsupportedOperationException("a Context is needed, use MediaPlayer(Context)");
+    }
+
+    public MediaPlayer(Context context) {
+        mLibVLC = LibVLCProvider.obtain(context, null);
         mMediaPlayer = new org.videolan.libvlc.MediaPlayer(mLibVLC);
     }
 
@@ -84,7 +94,7 @@ public class MediaPlayer {
 
     public static MediaPlayer create(Context context, Uri uri, SurfaceHolder holder,
                                      AudioAttributes audioAttributes, int audioSessionId) {
-        MediaPlayer player = new MediaPlayer();
+        MediaPlayer player = new MediaPlayer(context);
         //player.setDataSource(context, uri); This throws exception, but not this create()
         return player;
     }
@@ -195,6 +205,7 @@ public class MediaPlayer {
 
     public void release() {
         mMediaPlayer.release();
+        mLibVLC.release();
     }
 
     public void reset() {
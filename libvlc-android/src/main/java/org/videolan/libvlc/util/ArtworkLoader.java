@@ -0,0 +1,424 @@
+/*****************************************************************************
+ * ArtworkLoader.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc.util;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.videolan.libvlc.Media;
+import org.videolan.libvlc.MemoryGovernor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load downsampled artworks of medias, see {@link Media.Meta#ArtworkURL}.
+ * <p>
+ * Artworks are identified by a hash of their content, so that the artwork shared by all the tracks
+ * of an album is decoded and scaled only once per size. Scaled artworks are kept in a memory cache
+ * (sized in bytes) and in an optional disk cache, and callbacks are invoked from the main thread.
+ * <p>
+ * Only local artworks ("file://" and "content://" Uris) can be loaded. Artworks embedded in the
+ * media ("attachment://") have to be fetched by libvlc first, see {@link Media.Parse#FetchLocal}.
+ */
+public class ArtworkLoader implements MemoryGovernor.Sheddable {
+    private static final String TAG = "VLC/ArtworkLoader";
+    private static final long KEEP_ALIVE_SECONDS = 5;
+    private static final int DISK_QUALITY = 90;
+    private static final int HASH_CACHE_SIZE = 4096;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final Context mContext;
+    private final LruCache<String, Bitmap> mMemoryCache;
+    /* Artwork Uri -> content hash, so that identical artworks share cache entries. The hashes of
+     * local files are also kept in the disk cache, see getHash() */
+    private final LruCache<String, String> mHashes = new LruCache<>(HASH_CACHE_SIZE);
+    private final DiskCache mDiskCache;
+    private final ThreadPoolExecutor mExecutor;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final HashMap<String, ArrayList<Callback>> mPending = new HashMap<>();
+
+    /**
+     * @param context          a Context used to open "content://" artworks
+     * @param workers          maximum number of concurrent decodes
+     * @param memoryCacheBytes maximum size of the memory cache in bytes
+     * @param diskCacheDir     directory of the disk cache, null to disable the disk cache
+     * @param diskCacheBytes   maximum size of the disk cache in bytes
+     */
+    public ArtworkLoader(@NonNull Context context, int workers, int memoryCacheBytes,
+                         @Nullable File diskCacheDir, long diskCacheBytes) {
+        if (workers <= 0 || memoryCacheBytes <= 0)
+            throw new IllegalArgumentException("invalid workers count or memory cache size");
+        mContext = context.getApplicationContext();
+        mMemoryCache = new LruCache<String, Bitmap>(memoryCacheBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getRowBytes() * value.getHeight();
+            }
+        };
+        mDiskCache = diskCacheDir != null ? new DiskCache(diskCacheDir, diskCacheBytes) : null;
+        mExecutor = new ThreadPoolExecutor(workers, workers, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(@NonNull Runnable r) {
+                final Thread thread = new Thread(r, "VLC/Artwork-" + mCount.incrementAndGet());
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Get the artwork Uri of a media
+     *
+     * @return the Uri, or null if the media has no artwork
+     */
+    @Nullable
+    public static Uri getArtworkUri(@NonNull Media media) {
+        final String url = media.getMeta(Media.Meta.ArtworkURL);
+        return url != null && !url.isEmpty() ? Uri.parse(url) : null;
+    }
+
+    /**
+     * Get an artwork from the memory cache
+     *
+     * @param size maximum width and height of the artwork
+     * @return the artwork, or null if it's not in memory
+     */
+    @Nullable
+    public Bitmap getCached(@NonNull Uri artworkUri, int size) {
+        final String hash = mHashes.get(artworkUri.toString());
+        return hash != null ? mMemoryCache.get(getKey(hash, size)) : null;
+    }
+
+    /**
+     * Load the artwork of a media
+     *
+     * @see #load(Uri, int, Callback)
+     */
+    @MainThread
+    public void load(@NonNull Media media, int size, @NonNull Callback callback) {
+        final Uri uri = getArtworkUri(media);
+        if (uri == null)
+            callback.onArtwork(null, null);
+        else
+            load(uri, size, callback);
+    }
+
+    /**
+     * Load an artwork.
+     * <p>
+     * If the artwork is in the memory cache, the callback is invoked before this method returns.
+     *
+     * @param artworkUri Uri of the artwork, see {@link #getArtworkUri(Media)}
+     * @param size       maximum width and height of the artwork, the aspect ratio is kept
+     * @param callback   callback receiving the artwork, or null if it can't be loaded
+     */
+    @MainThread
+    public void load(@NonNull final Uri artworkUri, final int size, @NonNull Callback callback) {
+        final Bitmap cached = getCached(artworkUri, size);
+        if (cached != null) {
+            callback.onArtwork(artworkUri, cached);
+            return;
+        }
+        final String requestKey = getKey(artworkUri.toString(), size);
+        synchronized (mPending) {
+            ArrayList<Callback> callbacks = mPending.get(requestKey);
+            if (callbacks != null) {
+                callbacks.add(callback);
+                return;
+            }
+            callbacks = new ArrayList<>(1);
+            callbacks.add(callback);
+            mPending.put(requestKey, callbacks);
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Bitmap bitmap = null;
+                try {
+                    bitmap = loadBlocking(artworkUri, size);
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Can't load artwork " + artworkUri, e);
+                }
+                deliver(requestKey, artworkUri, bitmap);
+            }
+        });
+    }
+
+    /**
+     * Cancel a callback registered with {@link #load(Uri, int, Callback)}
+     */
+    @MainThread
+    public void cancel(@NonNull Uri artworkUri, int size, @NonNull Callback callback) {
+        synchronized (mPending) {
+            final ArrayList<Callback> callbacks = mPending.get(getKey(artworkUri.toString(), size));
+            if (callbacks != null)
+                callbacks.remove(callback);
+        }
+    }
+
+    /**
+     * Evict all artworks from the memory cache
+     */
+    public void clearMemoryCache() {
+        mMemoryCache.evictAll();
+    }
+
+    /**
+     * Evict all artworks from the memory cache
+     */
+    @Override
+    public long shed(int level) {
+        final long size = mMemoryCache.size();
+        mMemoryCache.evictAll();
+        return size;
+    }
+
+    /**
+     * Stop the worker threads, pending callbacks won't be invoked
+     */
+    @MainThread
+    public void release() {
+        mExecutor.shutdownNow();
+        synchronized (mPending) {
+            mPending.clear();
+        }
+        mHandler.removeCallbacksAndMessages(null);
+        mMemoryCache.evictAll();
+    }
+
+    private Bitmap loadBlocking(Uri uri, int size) {
+        final String hash = getHash(uri);
+        if (hash == null)
+            return null;
+        final String key = getKey(hash, size);
+        Bitmap bitmap = mMemoryCache.get(key);
+        if (bitmap != null)
+            return bitmap;
+
+        if (mDiskCache != null) {
+            final File file = mDiskCache.get(key);
+            if (file != null)
+                bitmap = BitmapFactory.decodeFile(file.getPath());
+        }
+        if (bitmap == null) {
+            bitmap = decode(uri, size);
+            if (bitmap == null)
+                return null;
+            if (mDiskCache != null)
+                mDiskCache.put(key, bitmap, bitmap.hasAlpha() ? Bitmap.CompressFormat.PNG
+                        : Bitmap.CompressFormat.JPEG, DISK_QUALITY);
+        }
+        mMemoryCache.put(key, bitmap);
+        return bitmap;
+    }
+
+    private Bitmap decode(Uri uri, int size) {
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        decodeStream(uri, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0)
+            return null;
+        /* Subsample while decoding, then scale to the exact size */
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= size && options.outHeight / (sampleSize * 2) >= size)
+            sampleSize *= 2;
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        final Bitmap decoded = decodeStream(uri, options);
+        if (decoded == null)
+            return null;
+        final float scale = Math.min((float) size / decoded.getWidth(), (float) size / decoded.getHeight());
+        if (scale >= 1f)
+            return decoded;
+        final Bitmap scaled = Bitmap.createScaledBitmap(decoded,
+                Math.max(1, Math.round(decoded.getWidth() * scale)),
+                Math.max(1, Math.round(decoded.getHeight() * scale)), true);
+        if (scaled != decoded)
+            decoded.recycle();
+        return scaled;
+    }
+
+    private Bitmap decodeStream(Uri uri, BitmapFactory.Options options) {
+        final InputStream is = openStream(uri);
+        if (is == null)
+            return null;
+        try {
+            return BitmapFactory.decodeStream(is, null, options);
+        } finally {
+            close(is);
+        }
+    }
+
+    /**
+     * Get the content hash of an artwork, from memory, then from the disk cache, and hash the
+     * content only when both miss
+     */
+    private String getHash(Uri uri) {
+        String hash = mHashes.get(uri.toString());
+        if (hash != null)
+            return hash;
+        final String diskKey = getHashKey(uri);
+        if (diskKey != null && mDiskCache != null) {
+            final byte[] bytes = mDiskCache.getBytes(diskKey);
+            if (bytes != null) {
+                hash = fromBytes(bytes);
+                mHashes.put(uri.toString(), hash);
+                return hash;
+            }
+        }
+        hash = hashContent(uri);
+        if (hash == null)
+            return null;
+        mHashes.put(uri.toString(), hash);
+        if (diskKey != null && mDiskCache != null)
+            mDiskCache.put(diskKey, toBytes(hash));
+        return hash;
+    }
+
+    /**
+     * Get the disk cache key of the hash of a local file: its path, size and modification date, so
+     * that a modified file is hashed again
+     *
+     * @return the key, or null if the artwork is not a file
+     */
+    private static String getHashKey(Uri uri) {
+        if (!"file".equals(uri.getScheme()) || uri.getPath() == null)
+            return null;
+        final File file = new File(uri.getPath());
+        final long length = file.length();
+        final long lastModified = file.lastModified();
+        if (length == 0 || lastModified == 0)
+            return null;
+        return "hash:" + file.getPath() + ":" + length + ":" + lastModified;
+    }
+
+    /* hashes are stored as their ASCII hex digits */
+    private static String fromBytes(byte[] bytes) {
+        final char[] chars = new char[bytes.length];
+        for (int i = 0; i < chars.length; ++i)
+            chars[i] = (char) bytes[i];
+        return new String(chars);
+    }
+
+    private static byte[] toBytes(String hex) {
+        final byte[] bytes = new byte[hex.length()];
+        for (int i = 0; i < bytes.length; ++i)
+            bytes[i] = (byte) hex.charAt(i);
+        return bytes;
+    }
+
+    private String hashContent(Uri uri) {
+        final InputStream is = openStream(uri);
+        if (is == null)
+            return null;
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("MD5");
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = is.read(buffer)) > 0)
+                digest.update(buffer, 0, read);
+            return DiskCache.toHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            return null;
+        } finally {
+            close(is);
+        }
+    }
+
+    private InputStream openStream(Uri uri) {
+        final String scheme = uri.getScheme();
+        try {
+            if ("file".equals(scheme))
+                return new FileInputStream(uri.getPath());
+            else if ("content".equals(scheme))
+                return mContext.getContentResolver().openInputStream(uri);
+        } catch (IOException | SecurityException e) {
+            Log.w(TAG, "Can't open artwork " + uri + ": " + e);
+        }
+        return null;
+    }
+
+    private void deliver(final String requestKey, final Uri uri, final Bitmap bitmap) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                final ArrayList<Callback> callbacks;
+                synchronized (mPending) {
+                    callbacks = mPending.remove(requestKey);
+                }
+                if (callbacks == null)
+                    return;
+                for (Callback callback : callbacks)
+                    callback.onArtwork(uri, bitmap);
+            }
+        });
+    }
+
+    private static String getKey(String id, int size) {
+        return id + "@" + size;
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null)
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+    }
+
+    /**
+     * Callback receiving loaded artworks
+     */
+    public interface Callback {
+        /**
+         * @param artworkUri Uri of the artwork, null if the media has no artwork
+         * @param artwork    the artwork, or null if it can't be loaded
+         */
+        void onArtwork(@Nullable Uri artworkUri, @Nullable Bitmap artwork);
+    }
+}
@@ -0,0 +1,179 @@
+/*****************************************************************************
+ * DecoderOutcomeStore.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc.util;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import org.videolan.libvlc.Media;
+
+import java.util.HashMap;
+
+/**
+ * Persistent record of hardware decoding outcomes.
+ * <p>
+ * Outcomes are recorded per codec, profile and resolution class, as a failure score. Each failure
+ * adds one to the score, each success halves it, and the score also decays over time with a
+ * half-life of {@link #HALF_LIFE_MS}, so that a device is given another chance after an update or
+ * after a transient failure. Hardware decoding is avoided while the score is above
+ * {@link #FAILURE_THRESHOLD}.
+ */
+public class DecoderOutcomeStore {
+    private static final String TAG = "VLC/DecoderOutcomeStore";
+    private static final String PREFS_NAME = "VLC_DecoderOutcomes";
+
+    /**
+     * Decayed failure score above which hardware decoding is not used anymore
+     */
+    public static final float FAILURE_THRESHOLD = 1.5f;
+
+    /**
+     * Time after which a failure only weights half
+     */
+    public static final long HALF_LIFE_MS = 3 * 24 * 60 * 60 * 1000L;
+
+    private static DecoderOutcomeStore sInstance = null;
+
+    private final SharedPreferences mPrefs;
+    private final HashMap<String, Record> mRecords = new HashMap<>();
+    private boolean mLoaded = false;
+
+    private DecoderOutcomeStore(Context context) {
+        mPrefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Get the store of the application
+     */
+    @NonNull
+    public static synchronized DecoderOutcomeStore getInstance(@NonNull Context context) {
+        if (sInstance == null)
+            sInstance = new DecoderOutcomeStore(context.getApplicationContext());
+        return sInstance;
+    }
+
+    /**
+     * Build the key of a video track: codec, profile and resolution class
+     */
+    @NonNull
+    public static String getKey(@NonNull Media.VideoTrack track) {
+        return track.codec + "/" + track.profile + "/" + getResolutionClass(track.width, track.height);
+    }
+
+    private static String getResolutionClass(int width, int height) {
+        final int lines = Math.min(width, height);
+        if (lines > 1088)
+            return "uhd";
+        else if (lines > 720)
+            return "fhd";
+        else if (lines > 576)
+            return "hd";
+        else
+            return "sd";
+    }
+
+    /**
+     * @return true if hardware decoding didn't fail recently for this key
+     */
+    public synchronized boolean isHardwareDecodingAllowed(@NonNull String key) {
+        final Record record = getRecord(key);
+        return record == null || record.getScore(System.currentTimeMillis()) < FAILURE_THRESHOLD;
+    }
+
+    /**
+     * Record a successful hardware decoding
+     */
+    public synchronized void recordSuccess(@NonNull String key) {
+        final Record record = getRecord(key);
+        if (record == null)
+            return;
+        final long now = System.currentTimeMillis();
+        record.update(record.getScore(now) / 2, now);
+        save(key, record);
+    }
+
+    /**
+     * Record a hardware decoding failure
+     */
+    public synchronized void recordFailure(@NonNull String key) {
+        Record record = getRecord(key);
+        final long now = System.currentTimeMillis();
+        if (record == null) {
+            record = new Record(0, now);
+            mRecords.put(key, record);
+        }
+        record.update(record.getScore(now) + 1, now);
+        save(key, record);
+        Log.w(TAG, "hardware decoding failed for " + key + ", score: " + record.mScore);
+    }
+
+    /**
+     * Forget all the recorded outcomes
+     */
+    public synchronized void clear() {
+        mRecords.clear();
+        mPrefs.edit().clear().apply();
+    }
+
+    private Record getRecord(String key) {
+        if (!mLoaded) {
+            for (String prefKey : mPrefs.getAll().keySet()) {
+                if (!prefKey.endsWith(".score"))
+                    continue;
+                final String recordKey = prefKey.substring(0, prefKey.length() - 6);
+                mRecords.put(recordKey, new Record(mPrefs.getFloat(prefKey, 0),
+                        mPrefs.getLong(recordKey + ".time", 0)));
+            }
+            mLoaded = true;
+        }
+        return mRecords.get(key);
+    }
+
+    private void save(String key, Record record) {
+        mPrefs.edit()
+                .putFloat(key + ".score", record.mScore)
+                .putLong(key + ".time", record.mTime)
+                .apply();
+    }
+
+    private static class Record {
+        private float mScore;
+        private long mTime;
+
+        private Record(float score, long time) {
+            mScore = score;
+            mTime = time;
+        }
+
+        private float getScore(long now) {
+            final long elapsed = Math.max(0, now - mTime);
+            return (float) (mScore * Math.pow(0.5, (double) elapsed / HALF_LIFE_MS));
+        }
+
+        private void update(float score, long time) {
+            mScore = score;
+            mTime = time;
+        }
+    }
+}
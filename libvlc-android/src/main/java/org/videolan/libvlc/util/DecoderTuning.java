@@ -0,0 +1,202 @@
+/*****************************************************************************
+ * DecoderTuning.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc.util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.videolan.libvlc.Media;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Software decoding options derived from the {@link VLCUtil.MachineSpecs} of the device.
+ * <p>
+ * The CPU capacity (cores, frequency, NEON, 64 bits) is compared to the load of the video
+ * (resolution, frame rate and codec complexity). The more the device lacks headroom, the more
+ * decoding work is skipped: the loop filter of non reference frames, then of bidirectional ones,
+ * then whole non reference frames, so that late frames are skipped early instead of dropped
+ * after being decoded.
+ */
+public class DecoderTuning {
+    /* values of the avcodec skip options */
+    public static final int SKIP_NONE = 0;
+    public static final int SKIP_NONREF = 1;
+    public static final int SKIP_BIDIR = 2;
+    public static final int SKIP_NONKEY = 3;
+
+    /* a 4 cores 1.5GHz NEON CPU decodes 1080p30 H.264 in software */
+    private static final float REFERENCE_CAPACITY = 4 * 1500f;
+    private static final float REFERENCE_PIXEL_RATE = 1920 * 1080 * 30f;
+    private static final float DEFAULT_FREQUENCY = 1000f;
+    private static final float DEFAULT_FRAME_RATE = 30f;
+    private static final int MAX_THREADS = 8;
+
+    public final int threads;
+    public final int skipLoopFilter;
+    public final int skipFrame;
+    public final boolean hurryUp;
+    /* capacity over load, 1 means just enough */
+    public final float headroom;
+
+    private DecoderTuning(int threads, int skipLoopFilter, int skipFrame, boolean hurryUp, float headroom) {
+        this.threads = threads;
+        this.skipLoopFilter = skipLoopFilter;
+        this.skipFrame = skipFrame;
+        this.hurryUp = hurryUp;
+        this.headroom = headroom;
+    }
+
+    /**
+     * Get the tuning for a video track
+     *
+     * @param specs specs of the device, from {@link VLCUtil#getMachineSpecs()}
+     * @param track the video track, or null if unknown (a 1080p30 H.264 track is assumed)
+     * @return the tuning, or null if the specs are unknown
+     */
+    @Nullable
+    public static DecoderTuning get(@Nullable VLCUtil.MachineSpecs specs, @Nullable Media.VideoTrack track) {
+        if (specs == null)
+            return null;
+        final int width = track != null && track.width > 0 ? track.width : 1920;
+        final int height = track != null && track.height > 0 ? track.height : 1080;
+        final float frameRate = track != null && track.frameRateDen > 0 && track.frameRateNum > 0
+                ? (float) track.frameRateNum / track.frameRateDen : DEFAULT_FRAME_RATE;
+        return get(specs, width, height, frameRate, track != null ? track.codec : null);
+    }
+
+    /**
+     * Get the tuning for a video
+     *
+     * @param codec fourcc of the codec, or null if unknown
+     */
+    @NonNull
+    public static DecoderTuning get(@NonNull VLCUtil.MachineSpecs specs, int width, int height,
+                                    float frameRate, @Nullable String codec) {
+        final int processors = Math.max(1, specs.processors);
+        final float headroom = getCapacity(specs) / getLoad(width, height, frameRate, codec);
+
+        /* frame threads add latency and memory for no gain on small videos */
+        final int threads = Math.min(MAX_THREADS, width * height > 1280 * 720 ? processors : Math.min(2, processors));
+        final int skipLoopFilter;
+        final int skipFrame;
+        if (headroom >= 1.5f) {
+            skipLoopFilter = SKIP_NONE;
+            skipFrame = SKIP_NONE;
+        } else if (headroom >= 1f) {
+            skipLoopFilter = SKIP_NONREF;
+            skipFrame = SKIP_NONE;
+        } else if (headroom >= 0.6f) {
+            skipLoopFilter = SKIP_BIDIR;
+            skipFrame = SKIP_NONE;
+        } else {
+            skipLoopFilter = SKIP_NONKEY;
+            skipFrame = SKIP_NONREF;
+        }
+        return new DecoderTuning(threads, skipLoopFilter, skipFrame, headroom < 1f, headroom);
+    }
+
+    /**
+     * Get the chroma of the Android display: RV32 on devices with enough memory bandwidth, RV16
+     * otherwise
+     *
+     * @param specs specs of the device, or null if unknown
+     */
+    @NonNull
+    public static String getDisplayChroma(@Nullable VLCUtil.MachineSpecs specs) {
+        if (specs == null)
+            return "RV16";
+        return specs.is64bits || (specs.hasNeon && getCapacity(specs) >= 1f) ? "RV32" : "RV16";
+    }
+
+    /**
+     * Get the Media options of this tuning
+     */
+    @NonNull
+    public List<String> getOptions() {
+        return getOptions(true);
+    }
+
+    /**
+     * Get the Media options of this tuning
+     *
+     * @param withHurryUp false to leave the hurry-up option out, if it was already set
+     */
+    @NonNull
+    public List<String> getOptions(boolean withHurryUp) {
+        final ArrayList<String> options = new ArrayList<>();
+        options.add(":avcodec-threads=" + threads);
+        options.add(":avcodec-skiploopfilter=" + skipLoopFilter);
+        options.add(":avcodec-skip-frame=" + skipFrame);
+        /* enabled by default in avcodec, only useful when the CPU lags */
+        if (withHurryUp)
+            options.add(hurryUp ? ":avcodec-hurry-up" : ":no-avcodec-hurry-up");
+        return options;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "threads: %d, skiploopfilter: %d, skip-frame: %d, hurry-up: %b, headroom: %.2f",
+                threads, skipLoopFilter, skipFrame, hurryUp, headroom);
+    }
+
+    private static float getCapacity(VLCUtil.MachineSpecs specs) {
+        final float frequency = specs.frequency > 0 ? specs.frequency : DEFAULT_FREQUENCY;
+        float capacity = Math.max(1, specs.processors) * frequency;
+        /* software decoders are SIMD optimized */
+        if (specs.hasArmV7 && !specs.hasNeon)
+            capacity *= 0.5f;
+        else if (specs.hasArmV6 && !specs.hasArmV7)
+            capacity *= 0.3f;
+        if (specs.is64bits)
+            capacity *= 1.2f;
+        return capacity / REFERENCE_CAPACITY;
+    }
+
+    private static float getLoad(int width, int height, float frameRate, String codec) {
+        final float pixelRate = width * height * (frameRate > 0 ? frameRate : DEFAULT_FRAME_RATE);
+        return Math.max(0.01f, pixelRate / REFERENCE_PIXEL_RATE * getComplexity(codec));
+    }
+
+    /**
+     * Get the decoding cost of a codec, relatively to H.264
+     */
+    private static float getComplexity(String codec) {
+        final String mimeType = MediaCodecCapabilities.getMimeType(codec);
+        if (mimeType == null)
+            return 1f;
+        switch (mimeType) {
+            case "video/hevc":
+            case "video/av01":
+                return 2f;
+            case "video/x-vnd.on2.vp9":
+                return 1.6f;
+            case "video/mp4v-es":
+            case "video/mpeg2":
+            case "video/3gpp":
+                return 0.5f;
+            default:
+                return 1f;
+        }
+    }
+}
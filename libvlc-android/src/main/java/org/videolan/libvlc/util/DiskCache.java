@@ -0,0 +1,333 @@
+/*****************************************************************************
+ * DiskCache.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc.util;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Size bounded, least recently used file cache.
+ * <p>
+ * Entries are stored as one file per key, the file name being a hash of the key. The last
+ * modification date of a file is used as its access date, so the least recently used entries are
+ * the first removed when the cache grows over its maximum size.
+ */
+public class DiskCache {
+    private static final String TAG = "VLC/DiskCache";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final File mDirectory;
+    private final long mMaxSize;
+    private long mSize = -1;
+    private boolean mOpened = false;
+
+    /**
+     * @param directory directory owned by this cache, it will be created if needed
+     * @param maxSize   maximum size of the cache in bytes
+     */
+    public DiskCache(File directory, long maxSize) {
+        if (directory == null || maxSize <= 0)
+            throw new IllegalArgumentException("invalid directory or size");
+        mDirectory = directory;
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Get the file holding the entry for this key
+     *
+     * @return the file, or null if there is no entry for this key
+     */
+    @Nullable
+    @WorkerThread
+    public synchronized File get(String key) {
+        ensureOpened();
+        final File file = getFile(key);
+        if (!file.isFile())
+            return null;
+        /* Bump the access date, ignore failures since it only affects eviction order */
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    /**
+     * Read the entry for this key
+     *
+     * @return the entry bytes, or null if there is no entry for this key
+     */
+    @Nullable
+    @WorkerThread
+    public byte[] getBytes(String key) {
+        final File file = get(key);
+        if (file == null)
+            return null;
+        FileInputStream fis = null;
+        try {
+            fis = new FileInputStream(file);
+            final byte[] bytes = new byte[(int) file.length()];
+            int offset = 0;
+            while (offset < bytes.length) {
+                final int read = fis.read(bytes, offset, bytes.length - offset);
+                if (read < 0)
+                    return null;
+                offset += read;
+            }
+            return bytes;
+        } catch (IOException e) {
+            return null;
+        } finally {
+            close(fis);
+        }
+    }
+
+    /**
+     * Store raw bytes for this key
+     *
+     * @return true on success
+     */
+    @WorkerThread
+    public boolean put(String key, byte[] data) {
+        final File tmp = createTempFile(key);
+        if (tmp == null)
+            return false;
+        OutputStream os = null;
+        try {
+            os = new FileOutputStream(tmp);
+            os.write(data);
+        } catch (IOException e) {
+            Log.w(TAG, "Can't write cache entry: " + e);
+            close(os);
+            tmp.delete();
+            return false;
+        }
+        close(os);
+        return commit(key, tmp);
+    }
+
+    /**
+     * Store a compressed Bitmap for this key
+     *
+     * @return true on success
+     */
+    @WorkerThread
+    public boolean put(String key, Bitmap bitmap, Bitmap.CompressFormat format, int quality) {
+        final File tmp = createTempFile(key);
+        if (tmp == null)
+            return false;
+        OutputStream os = null;
+        boolean compressed = false;
+        try {
+            os = new FileOutputStream(tmp);
+            compressed = bitmap.compress(format, quality, os);
+        } catch (IOException e) {
+            Log.w(TAG, "Can't write cache entry: " + e);
+        } finally {
+            close(os);
+        }
+        if (!compressed) {
+            tmp.delete();
+            return false;
+        }
+        return commit(key, tmp);
+    }
+
+    /**
+     * Remove the entry for this key
+     */
+    @WorkerThread
+    public synchronized void remove(String key) {
+        ensureOpened();
+        final File file = getFile(key);
+        final long length = file.length();
+        if (file.delete() && mSize != -1)
+            mSize -= length;
+    }
+
+    /**
+     * Remove all entries
+     */
+    @WorkerThread
+    public synchronized void clear() {
+        ensureOpened();
+        final File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files)
+                file.delete();
+        }
+        mSize = 0;
+    }
+
+    /**
+     * Get the current size of the cache in bytes
+     */
+    @WorkerThread
+    public synchronized long size() {
+        ensureSize();
+        return mSize;
+    }
+
+    public long getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * Remove least recently used entries until the cache fits in maxSize
+     *
+     * @param maxSize size in bytes
+     * @return number of bytes freed
+     */
+    @WorkerThread
+    public synchronized long trimToSize(long maxSize) {
+        ensureSize();
+        if (mSize <= maxSize)
+            return 0;
+        final File[] files = mDirectory.listFiles();
+        if (files == null)
+            return 0;
+        final long[] lastModified = new long[files.length];
+        final Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; ++i) {
+            lastModified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                final long diff = lastModified[a] - lastModified[b];
+                return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+            }
+        });
+        long freed = 0;
+        for (Integer i : order) {
+            if (mSize <= maxSize)
+                break;
+            if (files[i].getName().endsWith(TMP_SUFFIX))
+                continue;
+            final long length = files[i].length();
+            if (files[i].delete()) {
+                mSize -= length;
+                freed += length;
+            }
+        }
+        return freed;
+    }
+
+    private synchronized File createTempFile(String key) {
+        ensureOpened();
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            Log.w(TAG, "Can't create cache directory " + mDirectory);
+            return null;
+        }
+        return new File(mDirectory, hashKey(key) + "." + Thread.currentThread().getId() + TMP_SUFFIX);
+    }
+
+    private synchronized boolean commit(String key, File tmp) {
+        ensureSize();
+        final File file = getFile(key);
+        final long oldLength = file.length();
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            return false;
+        }
+        mSize += file.length() - oldLength;
+        if (mSize > mMaxSize)
+            trimToSize(mMaxSize * 9 / 10);
+        return true;
+    }
+
+    private void ensureSize() {
+        ensureOpened();
+        if (mSize != -1)
+            return;
+        mSize = 0;
+        final File[] files = mDirectory.listFiles();
+        if (files == null)
+            return;
+        for (File file : files) {
+            /* temporary files of pending writes are not entries */
+            if (!file.getName().endsWith(TMP_SUFFIX))
+                mSize += file.length();
+        }
+    }
+
+    /**
+     * Delete the leftovers of interrupted writes on the first access, from a worker thread. Only
+     * done once: later on, temporary files may belong to writes in progress on other threads.
+     */
+    private void ensureOpened() {
+        if (mOpened)
+            return;
+        mOpened = true;
+        final File[] files = mDirectory.listFiles();
+        if (files == null)
+            return;
+        for (File file : files) {
+            if (file.getName().endsWith(TMP_SUFFIX))
+                file.delete();
+        }
+    }
+
+    private File getFile(String key) {
+        return new File(mDirectory, hashKey(key));
+    }
+
+    /**
+     * Hash a string key into a file name compatible hexadecimal string
+     */
+    public static String hashKey(String key) {
+        try {
+            return toHex(MessageDigest.getInstance("MD5").digest(key.getBytes("UTF-8")));
+        } catch (NoSuchAlgorithmException | IOException e) {
+            return Integer.toHexString(key.hashCode());
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        final char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; ++i) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0x0f];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0x0f];
+        }
+        return new String(chars);
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null)
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+    }
+}
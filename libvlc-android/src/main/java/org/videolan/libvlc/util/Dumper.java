@@ -20,6 +20,7 @@
 
 package org.videolan.libvlc.util;
 
+import android.content.Context;
 import android.net.Uri;
 
 import androidx.annotation.MainThread;
@@ -34,15 +35,26 @@ public class Dumper {
     private final LibVLC mLibVLC;
     private final MediaPlayer mMediaPlayer;
     private final Listener mListener;
+    /**
+     * @deprecated a Context is needed to create LibVLC, use {@link #Dumper(Context, Uri, String, Listener)}
+     * @throws UnsupportedOperationException always
+     */
+    @Deprecated
+    @MainThread
+    public Dumper(Uri uri, String filepath, Listener listener) {
+        throw new UnsupportedOperationException("a Context is needed, use Dumper(Context, Uri, String, Listener)");
+    }
+
     /**
      * Create a Dumper that will download an Uri into a local filesystem path
      *
+     * @param context  a Context
      * @param uri      the Uri to dump
      * @param filepath local filesystem path where to dump the Uri
      * @param listener listener in order to be notified when the dump is finished
      */
     @MainThread
-    public Dumper(Uri uri, String filepath, Listener listener) {
+    public Dumper(Context context, Uri uri, String filepath, Listener listener) {
         if (uri == null || filepath == null || listener == null)
             throw new IllegalArgumentException("arguments shouldn't be null");
         mListener = listener;
@@ -56,7 +68,7 @@ public class Dumper {
         options.add("--no-audio");
         options.add("--no-spu");
         options.add("-vv");
-        mLibVLC = new LibVLC(null, options);
+        mLibVLC = LibVLCProvider.obtain(context, options);
 
         final Media media = new Media(mLibVLC, uri);
         mMediaPlayer = new MediaPlayer(media);
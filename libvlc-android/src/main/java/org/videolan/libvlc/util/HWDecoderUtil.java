@@ -21,7 +21,9 @@
 package org.videolan.libvlc.util;
 
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Utility class that return the preferred hardware decoder from a list of known devices.
@@ -85,22 +87,30 @@ public class HWDecoderUtil {
             new AudioOutputBySOC("ro.product.brand", "Amazon", AudioOutput.OPENSLES),
             new AudioOutputBySOC("ro.product.manufacturer", "Amazon", AudioOutput.OPENSLES),
     };
-    private static final HashMap<String, String> sSystemPropertyMap = new HashMap<String, String>();
 
     /**
      * @return the hardware decoder known to work for the running device
      * (Always return Dec.ALL after Android 4.3)
      */
     public static Decoder getDecoderFromDevice() {
+        return DeviceRules.sDecoder;
+    }
+
+    /**
+     * @return the audio output known to work for the running device
+     * (By default, returns ALL, i.e AudioTrack + OpenSles)
+     */
+    public static AudioOutput getAudioOutputFromDevice() {
+        return DeviceRules.sAudioOutput;
+    }
+
+    private static Decoder computeDecoder(Map<String, String> props) {
         /*
          * Try first blacklisted decoders (for all android versions)
          */
         for (DecoderBySOC decBySOC : sBlacklistedDecoderBySOCList) {
-            final String prop = getSystemPropertyCached(decBySOC.key);
-            if (prop != null) {
-                if (prop.contains(decBySOC.value))
-                    return decBySOC.dec;
-            }
+            if (decBySOC.matches(props))
+                return decBySOC.dec;
         }
         /*
          * Always try MediaCodec after JellyBean MR2,
@@ -111,48 +121,59 @@ public class HWDecoderUtil {
             return Decoder.ALL;
         else {
             for (DecoderBySOC decBySOC : sDecoderBySOCList) {
-                final String prop = getSystemPropertyCached(decBySOC.key);
-                if (prop != null) {
-                    if (prop.contains(decBySOC.value))
-                        return decBySOC.dec;
-                }
+                if (decBySOC.matches(props))
+                    return decBySOC.dec;
             }
         }
         return Decoder.UNKNOWN;
     }
 
-    /**
-     * @return the audio output known to work for the running device
-     * (By default, returns ALL, i.e AudioTrack + OpenSles)
-     */
-    public static AudioOutput getAudioOutputFromDevice() {
+    private static AudioOutput computeAudioOutput(Map<String, String> props) {
         for (AudioOutputBySOC aoutBySOC : sAudioOutputBySOCList) {
-            final String prop = getSystemPropertyCached(aoutBySOC.key);
-            if (prop != null) {
-                if (prop.contains(aoutBySOC.value))
-                    return aoutBySOC.aout;
-            }
+            if (aoutBySOC.matches(props))
+                return aoutBySOC.aout;
         }
         return AudioOutput.ALL;
     }
 
-    private static String getSystemPropertyCached(String key) {
-        String prop = sSystemPropertyMap.get(key);
-        if (prop == null) {
-            prop = getSystemProperty(key, "none");
-            sSystemPropertyMap.put(key, prop);
-        }
-        return prop;
+    /**
+     * Read, once, every system property used by the rule tables
+     *
+     * @return an immutable key to value map
+     */
+    private static Map<String, String> snapshotSystemProperties() {
+        final Method get = getSystemPropertyMethod();
+        final HashMap<String, String> props = new HashMap<String, String>();
+        for (DecoderBySOC decBySOC : sBlacklistedDecoderBySOCList)
+            putSystemProperty(props, get, decBySOC.key);
+        for (DecoderBySOC decBySOC : sDecoderBySOCList)
+            putSystemProperty(props, get, decBySOC.key);
+        for (AudioOutputBySOC aoutBySOC : sAudioOutputBySOCList)
+            putSystemProperty(props, get, aoutBySOC.key);
+        return Collections.unmodifiableMap(props);
     }
 
-    private static String getSystemProperty(String key, String def) {
+    private static void putSystemProperty(Map<String, String> props, Method get, String key) {
+        if (!props.containsKey(key))
+            props.put(key, getSystemProperty(get, key, "none"));
+    }
+
+    private static Method getSystemPropertyMethod() {
         try {
             final ClassLoader cl = ClassLoader.getSystemClassLoader();
             final Class<?> SystemProperties = cl.loadClass("android.os.SystemProperties");
-            final Class<?>[] paramTypes = new Class[]{String.class, String.class};
-            final Method get = SystemProperties.getMethod("get", paramTypes);
-            final Object[] params = new Object[]{key, def};
-            return (String) get.invoke(SystemProperties, params);
+            return SystemProperties.getMethod("get", String.class, String.class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String getSystemProperty(Method get, String key, String def) {
+        if (get == null)
+            return def;
+        try {
+            final String prop = (String) get.invoke(null, key, def);
+            return prop != null ? prop : def;
         } catch (Exception e) {
             return def;
         }
@@ -176,6 +197,11 @@ public class HWDecoderUtil {
             this.value = value;
             this.dec = dec;
         }
+
+        public boolean matches(Map<String, String> props) {
+            final String prop = props.get(key);
+            return prop != null && prop.contains(value);
+        }
     }
 
     private static class AudioOutputBySOC {
@@ -188,5 +214,20 @@ public class HWDecoderUtil {
             this.value = value;
             this.aout = aout;
         }
+
+        public boolean matches(Map<String, String> props) {
+            final String prop = props.get(key);
+            return prop != null && prop.contains(value);
+        }
+    }
+
+    /**
+     * Rules evaluated once per process, on first use. Class initialization is thread-safe and the
+     * results are immutable, so lookups don't need any locking.
+     */
+    private static class DeviceRules {
+        static final Map<String, String> sProperties = snapshotSystemProperties();
+        static final Decoder sDecoder = computeDecoder(sProperties);
+        static final AudioOutput sAudioOutput = computeAudioOutput(sProperties);
     }
 }
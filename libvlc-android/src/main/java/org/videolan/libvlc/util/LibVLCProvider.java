@@ -0,0 +1,118 @@
+/*****************************************************************************
+ * LibVLCProvider.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc.util;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.videolan.libvlc.LibVLC;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process wide provider of shared LibVLC instances.
+ * <p>
+ * Instances are keyed by the fingerprint of their options, so that users asking for the same
+ * options share the same instance instead of each loading the plugins again. The provider doesn't
+ * own any reference: each {@link #obtain(Context, List)} returns a retained instance that must be
+ * released by the caller with {@link LibVLC#release()}, and the native instance goes away with
+ * its last user.
+ */
+public class LibVLCProvider {
+    private static final Map<String, LibVLC> sInstances = new HashMap<>();
+
+    private LibVLCProvider() {
+    }
+
+    /**
+     * Get a LibVLC created with the given options, shared with the other users of the same options
+     *
+     * @param context a Context, only its application context is kept
+     * @param options LibVLC options, or null for the default ones
+     * @return a retained LibVLC, to be released by the caller
+     */
+    @NonNull
+    public static LibVLC obtain(@NonNull Context context, @Nullable List<String> options) {
+        final String fingerprint = getFingerprint(options);
+        synchronized (sInstances) {
+            final LibVLC libVLC = sInstances.get(fingerprint);
+            if (libVLC != null && libVLC.retain())
+                return libVLC;
+            prune();
+            final LibVLC newLibVLC = new LibVLC(context.getApplicationContext(),
+                    options != null ? new ArrayList<>(options) : null);
+            sInstances.put(fingerprint, newLibVLC);
+            return newLibVLC;
+        }
+    }
+
+    /**
+     * Normalize an option list: "--key value" pairs are joined into "--key=value", and options are
+     * sorted by key. Options with the same key keep their relative order, since the last one wins.
+     */
+    @NonNull
+    public static String getFingerprint(@Nullable List<String> options) {
+        if (options == null || options.isEmpty())
+            return "";
+        final ArrayList<String> normalized = new ArrayList<>(options.size());
+        for (int i = 0; i < options.size(); ++i) {
+            final String option = options.get(i).trim();
+            if (option.isEmpty())
+                continue;
+            if (option.startsWith("-") && option.indexOf('=') < 0 && i + 1 < options.size()
+                    && !options.get(i + 1).trim().startsWith("-"))
+                normalized.add(option + "=" + options.get(++i).trim());
+            else
+                normalized.add(option);
+        }
+        Collections.sort(normalized, new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                return getOptionKey(a).compareTo(getOptionKey(b));
+            }
+        });
+        final StringBuilder sb = new StringBuilder();
+        for (String option : normalized)
+            sb.append(option).append('\n');
+        return sb.toString();
+    }
+
+    private static String getOptionKey(String option) {
+        final int sep = option.indexOf('=');
+        return sep >= 0 ? option.substring(0, sep) : option;
+    }
+
+    private static void prune() {
+        final Iterator<LibVLC> it = sInstances.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().isReleased())
+                it.remove();
+        }
+    }
+}
@@ -0,0 +1,366 @@
+/*****************************************************************************
+ * MediaCodecCapabilities.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc.util;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.videolan.libvlc.Media;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Hardware video decoding capabilities of the device.
+ * <p>
+ * The codec list is queried once, for a fixed set of codecs, sizes (480p to 2160p) and frame rates
+ * (30 and 60 fps), and the resulting support matrix is kept in memory and in SharedPreferences for
+ * the current system build. The codec list is pluggable, so that the probe can run against a fake
+ * list.
+ */
+public class MediaCodecCapabilities {
+    private static final String TAG = "VLC/MediaCodecCaps";
+    private static final String PREFS_NAME = "VLC_MediaCodecCapabilities";
+
+    private static final String[] MIME_TYPES = {
+            "video/avc", "video/hevc", "video/x-vnd.on2.vp8", "video/x-vnd.on2.vp9", "video/av01",
+            "video/mp4v-es", "video/mpeg2", "video/3gpp",
+    };
+    private static final int[][] SIZES = {
+            {854, 480}, {1280, 720}, {1920, 1080}, {3840, 2160},
+    };
+    private static final int[] FRAME_RATES = {30, 60};
+
+    private static volatile MediaCodecCapabilities sInstance = null;
+    private static boolean sWarmingUp = false;
+
+    /* MIME type -> bit mask of supported (size, frame rate), null if the list can't be queried */
+    private final Map<String, Integer> mMatrix;
+
+    /**
+     * Source of decoders to probe
+     */
+    public interface CodecList {
+        int getCodecCount();
+
+        Codec getCodec(int index);
+    }
+
+    /**
+     * A decoder of the {@link CodecList}
+     */
+    public interface Codec {
+        String getName();
+
+        boolean isEncoder();
+
+        String[] getSupportedTypes();
+
+        /**
+         * @return true if this codec can decode the given MIME type at this size and frame rate
+         */
+        boolean isSupported(String mimeType, int width, int height, int frameRate);
+    }
+
+    /**
+     * Probe a codec list
+     */
+    public MediaCodecCapabilities(@NonNull CodecList codecList) {
+        this(probe(codecList));
+    }
+
+    private MediaCodecCapabilities(Map<String, Integer> matrix) {
+        mMatrix = matrix;
+    }
+
+    /**
+     * Get the capabilities of the device, probed on the first call of this system build. The probe
+     * can take hundreds of ms, see {@link #warmUp(Context)}.
+     */
+    @NonNull
+    public static synchronized MediaCodecCapabilities getInstance(@NonNull Context context) {
+        if (sInstance != null)
+            return sInstance;
+        if (!AndroidUtil.isJellyBeanMR2OrLater) {
+            sInstance = new MediaCodecCapabilities((Map<String, Integer>) null);
+            return sInstance;
+        }
+        final SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        Map<String, Integer> matrix = null;
+        if (Build.FINGERPRINT.equals(prefs.getString("fingerprint", null)))
+            matrix = decode(prefs.getString("matrix", null));
+        if (matrix == null) {
+            final long start = SystemClock.elapsedRealtime();
+            matrix = probe(new PlatformCodecList());
+            Log.d(TAG, "codec list probed in " + (SystemClock.elapsedRealtime() - start) + " ms");
+            prefs.edit()
+                    .putString("fingerprint", Build.FINGERPRINT)
+                    .putString("matrix", encode(matrix))
+                    .apply();
+        }
+        sInstance = new MediaCodecCapabilities(matrix);
+        return sInstance;
+    }
+
+    /**
+     * Get the capabilities if they are already probed, without blocking
+     *
+     * @return the capabilities, or null if {@link #getInstance(Context)} didn't return yet
+     */
+    @Nullable
+    public static MediaCodecCapabilities peekInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Probe the capabilities on a background thread, if not done yet, so that
+     * {@link #peekInstance()} returns them later on
+     */
+    public static void warmUp(@NonNull Context context) {
+        synchronized (MediaCodecCapabilities.class) {
+            if (sInstance != null || sWarmingUp)
+                return;
+            sWarmingUp = true;
+        }
+        final Context appContext = context.getApplicationContext();
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                getInstance(appContext);
+            }
+        }, "VLC/CodecProbe");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Get the MediaCodec MIME type of a VLC fourcc
+     *
+     * @return the MIME type, or null if the codec is not probed
+     */
+    @Nullable
+    public static String getMimeType(@Nullable String fourcc) {
+        if (fourcc == null)
+            return null;
+        switch (fourcc.trim().toLowerCase(Locale.US)) {
+            case "h264":
+            case "avc1":
+                return "video/avc";
+            case "hevc":
+            case "hvc1":
+            case "hev1":
+                return "video/hevc";
+            case "vp80":
+                return "video/x-vnd.on2.vp8";
+            case "vp90":
+                return "video/x-vnd.on2.vp9";
+            case "av01":
+                return "video/av01";
+            case "mp4v":
+                return "video/mp4v-es";
+            case "mpgv":
+            case "mp2v":
+                return "video/mpeg2";
+            case "h263":
+                return "video/3gpp";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return false if the capabilities are known and no hardware decoder supports the given MIME
+     * type, size and frame rate
+     */
+    public boolean isSupported(@NonNull String mimeType, int width, int height, float frameRate) {
+        if (mMatrix == null)
+            return true;
+        final Integer mask = mMatrix.get(mimeType);
+        if (mask == null)
+            return false;
+        final int sizeIndex = getSizeIndex(width, height);
+        if (sizeIndex < 0)
+            return false;
+        return (mask & getBit(sizeIndex, getFrameRateIndex(frameRate))) != 0;
+    }
+
+    /**
+     * @return false if it is known that no hardware decoder can decode this track
+     */
+    public boolean isSupported(@NonNull Media.VideoTrack track) {
+        final String mimeType = getMimeType(track.codec);
+        if (mimeType == null || track.width <= 0 || track.height <= 0)
+            return true;
+        final float frameRate = track.frameRateDen > 0 ? (float) track.frameRateNum / track.frameRateDen : 0;
+        return isSupported(mimeType, track.width, track.height, frameRate);
+    }
+
+    private static int getSizeIndex(int width, int height) {
+        /* compare in landscape orientation */
+        final int w = Math.max(width, height);
+        final int h = Math.min(width, height);
+        for (int i = 0; i < SIZES.length; ++i) {
+            if (w <= SIZES[i][0] && h <= SIZES[i][1])
+                return i;
+        }
+        return -1;
+    }
+
+    private static int getFrameRateIndex(float frameRate) {
+        for (int i = 0; i < FRAME_RATES.length; ++i) {
+            if (frameRate <= FRAME_RATES[i])
+                return i;
+        }
+        return FRAME_RATES.length - 1;
+    }
+
+    private static int getBit(int sizeIndex, int frameRateIndex) {
+        return 1 << (sizeIndex * FRAME_RATES.length + frameRateIndex);
+    }
+
+    private static Map<String, Integer> probe(CodecList codecList) {
+        final HashMap<String, Integer> matrix = new HashMap<>();
+        final int count = codecList.getCodecCount();
+        for (int i = 0; i < count; ++i) {
+            final Codec codec = codecList.getCodec(i);
+            if (codec == null || codec.isEncoder() || !isHardwareCodec(codec.getName()))
+                continue;
+            for (String type : codec.getSupportedTypes()) {
+                final String mimeType = type.toLowerCase(Locale.US);
+                if (!isProbed(mimeType))
+                    continue;
+                int mask = matrix.containsKey(mimeType) ? matrix.get(mimeType) : 0;
+                for (int s = 0; s < SIZES.length; ++s) {
+                    for (int r = 0; r < FRAME_RATES.length; ++r) {
+                        if ((mask & getBit(s, r)) == 0
+                                && codec.isSupported(mimeType, SIZES[s][0], SIZES[s][1], FRAME_RATES[r]))
+                            mask |= getBit(s, r);
+                    }
+                }
+                matrix.put(mimeType, mask);
+            }
+        }
+        return matrix;
+    }
+
+    private static boolean isProbed(String mimeType) {
+        for (String type : MIME_TYPES) {
+            if (type.equals(mimeType))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean isHardwareCodec(String name) {
+        final String lname = name.toLowerCase(Locale.US);
+        return !lname.startsWith("omx.google.") && !lname.startsWith("c2.android.")
+                && !lname.startsWith("c2.google.") && !lname.startsWith("omx.ffmpeg.")
+                && !lname.contains(".sw.") && !lname.endsWith(".sw") && !lname.endsWith(".secure");
+    }
+
+    private static String encode(Map<String, Integer> matrix) {
+        final StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : matrix.entrySet())
+            sb.append(entry.getKey()).append('=').append(entry.getValue()).append(';');
+        return sb.toString();
+    }
+
+    private static Map<String, Integer> decode(String value) {
+        if (value == null)
+            return null;
+        final HashMap<String, Integer> matrix = new HashMap<>();
+        try {
+            for (String entry : value.split(";")) {
+                if (entry.isEmpty())
+                    continue;
+                final int sep = entry.indexOf('=');
+                matrix.put(entry.substring(0, sep), Integer.parseInt(entry.substring(sep + 1)));
+            }
+        } catch (RuntimeException e) {
+            return null;
+        }
+        return matrix;
+    }
+
+    /**
+     * {@link CodecList} backed by {@link MediaCodecList}
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    @SuppressWarnings("deprecation") /* MediaCodecList instances need API 21 */
+    private static class PlatformCodecList implements CodecList {
+        @Override
+        public int getCodecCount() {
+            return MediaCodecList.getCodecCount();
+        }
+
+        @Override
+        public Codec getCodec(int index) {
+            final MediaCodecInfo info = MediaCodecList.getCodecInfoAt(index);
+            return new Codec() {
+                @Override
+                public String getName() {
+                    return info.getName();
+                }
+
+                @Override
+                public boolean isEncoder() {
+                    return info.isEncoder();
+                }
+
+                @Override
+                public String[] getSupportedTypes() {
+                    return info.getSupportedTypes();
+                }
+
+                @Override
+                public boolean isSupported(String mimeType, int width, int height, int frameRate) {
+                    /* sizes and frame rates can't be queried before Lollipop */
+                    if (!AndroidUtil.isLolliPopOrLater)
+                        return true;
+                    return isSupportedV21(info, mimeType, width, height, frameRate);
+                }
+            };
+        }
+
+        @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+        private static boolean isSupportedV21(MediaCodecInfo info, String mimeType, int width,
+                                              int height, int frameRate) {
+            try {
+                final MediaCodecInfo.VideoCapabilities caps =
+                        info.getCapabilitiesForType(mimeType).getVideoCapabilities();
+                return caps != null && (caps.areSizeAndRateSupported(width, height, frameRate)
+                        || caps.areSizeAndRateSupported(height, width, frameRate));
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+    }
+}
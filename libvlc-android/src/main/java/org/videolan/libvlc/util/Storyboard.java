@@ -0,0 +1,155 @@
+/*****************************************************************************
+ * Storyboard.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc.util;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Seek preview sprite sheet.
+ * <p>
+ * Tiles are packed row by row in a single Bitmap, and each tile is associated with the media
+ * time (in ms) of the frame it shows. Times are sorted, so the tile to show for a seek position
+ * is found with a binary search.
+ */
+public class Storyboard {
+    private static final int INDEX_MAGIC = 0x56534231; /* "VSB1" */
+
+    private final Bitmap mSprite;
+    private final int mTileWidth;
+    private final int mTileHeight;
+    private final int mColumns;
+    private final long[] mTimes;
+
+    Storyboard(Bitmap sprite, int tileWidth, int tileHeight, int columns, long[] times) {
+        mSprite = sprite;
+        mTileWidth = tileWidth;
+        mTileHeight = tileHeight;
+        mColumns = columns;
+        mTimes = times;
+    }
+
+    /**
+     * Get the sprite sheet containing all the tiles
+     */
+    @NonNull
+    public Bitmap getSprite() {
+        return mSprite;
+    }
+
+    public int getTileWidth() {
+        return mTileWidth;
+    }
+
+    public int getTileHeight() {
+        return mTileHeight;
+    }
+
+    public int getColumns() {
+        return mColumns;
+    }
+
+    public int getTileCount() {
+        return mTimes.length;
+    }
+
+    /**
+     * Get the media time of a tile
+     *
+     * @return time in ms
+     */
+    public long getTileTime(int index) {
+        return mTimes[index];
+    }
+
+    /**
+     * Get the tile showing the frame the closest before a media time
+     *
+     * @param time time in ms
+     * @return tile index, or -1 if the storyboard is empty
+     */
+    public int getTileIndex(long time) {
+        if (mTimes.length == 0)
+            return -1;
+        final int index = Arrays.binarySearch(mTimes, time);
+        if (index >= 0)
+            return index;
+        /* insertion point - 1 is the last tile before time */
+        return Math.max(0, -index - 2);
+    }
+
+    /**
+     * Get the area of a tile in the sprite sheet
+     *
+     * @param index tile index
+     * @param rect  Rect to fill, allocated if null
+     * @return the filled Rect
+     */
+    @NonNull
+    public Rect getTileRect(int index, @Nullable Rect rect) {
+        if (rect == null)
+            rect = new Rect();
+        final int left = (index % mColumns) * mTileWidth;
+        final int top = (index / mColumns) * mTileHeight;
+        rect.set(left, top, left + mTileWidth, top + mTileHeight);
+        return rect;
+    }
+
+    /**
+     * Serialize the tile layout and time index
+     */
+    byte[] encodeIndex() {
+        final ByteBuffer buffer = ByteBuffer.allocate(16 + mTimes.length * 8);
+        buffer.putInt(INDEX_MAGIC).putInt(mTileWidth).putInt(mTileHeight).putInt(mColumns);
+        for (long time : mTimes)
+            buffer.putLong(time);
+        return buffer.array();
+    }
+
+    /**
+     * Build a Storyboard from a sprite and an index created by {@link #encodeIndex()}
+     *
+     * @return the storyboard, or null if the index is invalid
+     */
+    @Nullable
+    static Storyboard decode(Bitmap sprite, byte[] index) {
+        if (sprite == null || index == null || index.length < 16 || (index.length - 16) % 8 != 0)
+            return null;
+        final ByteBuffer buffer = ByteBuffer.wrap(index);
+        if (buffer.getInt() != INDEX_MAGIC)
+            return null;
+        final int tileWidth = buffer.getInt();
+        final int tileHeight = buffer.getInt();
+        final int columns = buffer.getInt();
+        final long[] times = new long[(index.length - 16) / 8];
+        for (int i = 0; i < times.length; ++i)
+            times[i] = buffer.getLong();
+        if (columns <= 0 || sprite.getWidth() < columns * tileWidth)
+            return null;
+        return new Storyboard(sprite, tileWidth, tileHeight, columns, times);
+    }
+}
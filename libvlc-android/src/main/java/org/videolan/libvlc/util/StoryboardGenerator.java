@@ -0,0 +1,363 @@
+/*****************************************************************************
+ * StoryboardGenerator.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc.util;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.videolan.libvlc.LibVLC;
+import org.videolan.libvlc.Media;
+import org.videolan.libvlc.MediaPlayer;
+
+import java.io.File;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generate seek preview storyboards.
+ * <p>
+ * Unlike calling {@link VLCUtil#getThumbnail(LibVLC, Uri, int, int)} once per position, the media
+ * is opened only once: a single player decodes it with fast (keyframe) seeks and the "scene" video
+ * filter, and is moved from one position to the next. Tiles are streamed to the listener as they
+ * are produced, and complete storyboards are kept in a disk cache.
+ */
+public class StoryboardGenerator {
+    private static final String TAG = "VLC/StoryboardGenerator";
+    private static final String SCENE_PREFIX = "storyboard";
+    private static final long SEEK_TIMEOUT_MS = 5000;
+    private static final long FRAME_TIMEOUT_MS = 3000;
+    private static final long POLL_INTERVAL_MS = 10;
+    private static final int SPRITE_QUALITY = 80;
+
+    private final LibVLC mLibVLC;
+    private final File mWorkDir;
+    private final DiskCache mDiskCache;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final ThreadPoolExecutor mExecutor;
+    private volatile Task mCurrentTask = null;
+
+    /**
+     * @param libVLC         a valid LibVLC, retained until {@link #release()}
+     * @param workDir        private directory used to exchange frames with the scene filter
+     * @param diskCacheDir   directory of the storyboard cache, null to disable it
+     * @param diskCacheBytes maximum size of the storyboard cache in bytes
+     */
+    public StoryboardGenerator(@NonNull LibVLC libVLC, @NonNull File workDir,
+                               @Nullable File diskCacheDir, long diskCacheBytes) {
+        if (!libVLC.retain())
+            throw new IllegalArgumentException("LibVLC is released");
+        mLibVLC = libVLC;
+        mWorkDir = workDir;
+        mDiskCache = diskCacheDir != null ? new DiskCache(diskCacheDir, diskCacheBytes) : null;
+        mExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull Runnable r) {
+                final Thread thread = new Thread(r, "VLC/Storyboard");
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        }) {
+            @Override
+            protected void terminated() {
+                mLibVLC.release();
+            }
+        };
+    }
+
+    /**
+     * Build the cache key of a storyboard
+     */
+    public static String getKey(Uri uri, int tileWidth, int tileHeight, int count) {
+        return "storyboard:" + uri.toString() + "@" + tileWidth + "x" + tileHeight + "#" + count;
+    }
+
+    /**
+     * Generate a storyboard asynchronously
+     *
+     * @param uri        Uri of the media
+     * @param tileWidth  width of a tile
+     * @param tileHeight height of a tile
+     * @param count      number of tiles, spread evenly over the media duration
+     * @param listener   listener notified from the main thread
+     * @return a handle to cancel the generation
+     */
+    @NonNull
+    @MainThread
+    public Task generate(@NonNull Uri uri, int tileWidth, int tileHeight, int count,
+                         @NonNull Listener listener) {
+        if (tileWidth <= 0 || tileHeight <= 0 || count <= 0)
+            throw new IllegalArgumentException("invalid storyboard dimensions");
+        final Task task = new Task(uri, tileWidth, tileHeight, count, listener);
+        mExecutor.execute(task);
+        return task;
+    }
+
+    /**
+     * Cancel pending generations, LibVLC is released once the running one is over.
+     */
+    @MainThread
+    public void release() {
+        mExecutor.shutdownNow();
+        final Task task = mCurrentTask;
+        if (task != null)
+            task.cancel();
+    }
+
+    private Storyboard loadFromCache(String key) {
+        if (mDiskCache == null)
+            return null;
+        final File sprite = mDiskCache.get(key);
+        final byte[] index = mDiskCache.getBytes(key + ":index");
+        if (sprite == null || index == null)
+            return null;
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inMutable = true;
+        return Storyboard.decode(BitmapFactory.decodeFile(sprite.getPath(), options), index);
+    }
+
+    private void saveToCache(String key, Storyboard storyboard) {
+        if (mDiskCache == null)
+            return;
+        if (mDiskCache.put(key + ":index", storyboard.encodeIndex()))
+            mDiskCache.put(key, storyboard.getSprite(), Bitmap.CompressFormat.JPEG, SPRITE_QUALITY);
+    }
+
+    /**
+     * Listener notified of the storyboard progress
+     */
+    public interface Listener {
+        /**
+         * Called each time a tile is drawn into the sprite sheet
+         *
+         * @param storyboard storyboard being generated, only tiles up to index are valid
+         * @param index      index of the new tile
+         */
+        void onTile(Storyboard storyboard, int index);
+
+        /**
+         * Called when the storyboard is complete
+         */
+        void onComplete(Storyboard storyboard);
+
+        /**
+         * Called if the storyboard couldn't be generated
+         */
+        void onError();
+    }
+
+    /**
+     * A storyboard generation
+     */
+    public class Task implements Runnable {
+        private final Uri mUri;
+        private final int mTileWidth;
+        private final int mTileHeight;
+        private final int mCount;
+        private final Listener mListener;
+        private volatile boolean mCancelled = false;
+
+        private Task(Uri uri, int tileWidth, int tileHeight, int count, Listener listener) {
+            mUri = uri;
+            mTileWidth = tileWidth;
+            mTileHeight = tileHeight;
+            mCount = count;
+            mListener = listener;
+        }
+
+        /**
+         * Cancel this generation, the listener won't be called anymore
+         */
+        @MainThread
+        public void cancel() {
+            mCancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+
+        @Override
+        public void run() {
+            if (mCancelled)
+                return;
+            mCurrentTask = this;
+            try {
+                load();
+            } finally {
+                mCurrentTask = null;
+            }
+        }
+
+        private void load() {
+            final String key = getKey(mUri, mTileWidth, mTileHeight, mCount);
+            Storyboard storyboard = loadFromCache(key);
+            if (storyboard == null) {
+                try {
+                    storyboard = generate();
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Storyboard generation failed for " + mUri, e);
+                    storyboard = null;
+                }
+                if (storyboard != null && !mCancelled)
+                    saveToCache(key, storyboard);
+            }
+            final Storyboard result = storyboard;
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (mCancelled)
+                        return;
+                    if (result != null)
+                        mListener.onComplete(result);
+                    else
+                        mListener.onError();
+                }
+            });
+        }
+
+        private Storyboard generate() {
+            if (!mWorkDir.isDirectory() && !mWorkDir.mkdirs())
+                return null;
+            final String prefix = SCENE_PREFIX + Thread.currentThread().getId();
+            final File frameFile = new File(mWorkDir, prefix + ".png");
+            frameFile.delete();
+
+            final Media media = new Media(mLibVLC, mUri);
+            media.parse(Media.Parse.ParseLocal);
+            final long length = media.getDuration();
+            if (length <= 0) {
+                media.release();
+                return null;
+            }
+            media.addOption(":no-audio");
+            media.addOption(":no-spu");
+            media.addOption(":no-osd");
+            media.addOption(":input-fast-seek");
+            media.addOption(":vout=dummy");
+            media.addOption(":video-filter=scene");
+            media.addOption(":scene-format=png");
+            media.addOption(":scene-ratio=1");
+            media.addOption(":scene-replace");
+            media.addOption(":scene-width=" + mTileWidth);
+            media.addOption(":scene-height=" + mTileHeight);
+            media.addOption(":scene-path=" + mWorkDir.getAbsolutePath());
+            media.addOption(":scene-prefix=" + prefix);
+            final MediaPlayer player = new MediaPlayer(media);
+            media.release();
+
+            final int columns = (int) Math.ceil(Math.sqrt(mCount));
+            final int rows = (mCount + columns - 1) / columns;
+            final Bitmap sprite = Bitmap.createBitmap(columns * mTileWidth, rows * mTileHeight,
+                    Bitmap.Config.ARGB_8888);
+            final Canvas canvas = new Canvas(sprite);
+            final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+            final Rect rect = new Rect();
+            final long[] times = new long[mCount];
+            final Storyboard storyboard = new Storyboard(sprite, mTileWidth, mTileHeight, columns, times);
+            int tiles = 0;
+            try {
+                player.play();
+                if (!waitForFrame(player, frameFile))
+                    return null;
+                for (; tiles < mCount && !mCancelled; ++tiles) {
+                    final long target = length * (2 * tiles + 1) / (2 * mCount);
+                    final long time = seek(player, frameFile, target);
+                    if (time < 0)
+                        break;
+                    final Bitmap frame = BitmapFactory.decodeFile(frameFile.getPath());
+                    if (frame == null)
+                        break;
+                    /* keyframe aligned positions can go backward with long GOPs, keep the index sorted */
+                    times[tiles] = tiles > 0 ? Math.max(time, times[tiles - 1]) : time;
+                    canvas.drawBitmap(frame, null, storyboard.getTileRect(tiles, rect), paint);
+                    frame.recycle();
+                    postTile(storyboard, tiles);
+                }
+            } finally {
+                player.stop();
+                player.release();
+                frameFile.delete();
+            }
+            if (tiles < mCount || mCancelled)
+                return null;
+            return storyboard;
+        }
+
+        /**
+         * Move the player to a position and wait for the scene filter to write the new frame
+         *
+         * @return the actual time of the frame, or -1 on timeout
+         */
+        private long seek(MediaPlayer player, File frameFile, long target) {
+            final long previousTime = player.getTime();
+            player.setTime(target);
+            final long deadline = SystemClock.elapsedRealtime() + SEEK_TIMEOUT_MS;
+            long time = previousTime;
+            /* Wait for the seek to land before discarding the last written frame */
+            while (time == previousTime && target != previousTime) {
+                if (mCancelled || SystemClock.elapsedRealtime() > deadline)
+                    return -1;
+                SystemClock.sleep(POLL_INTERVAL_MS);
+                time = player.getTime();
+            }
+            frameFile.delete();
+            if (!waitForFrame(player, frameFile))
+                return -1;
+            return Math.max(0, time);
+        }
+
+        private boolean waitForFrame(MediaPlayer player, File frameFile) {
+            final long deadline = SystemClock.elapsedRealtime() + FRAME_TIMEOUT_MS;
+            while (!frameFile.isFile()) {
+                if (mCancelled || SystemClock.elapsedRealtime() > deadline
+                        || player.getPlayerState() == Media.State.Error)
+                    return false;
+                SystemClock.sleep(POLL_INTERVAL_MS);
+            }
+            return true;
+        }
+
+        private void postTile(final Storyboard storyboard, final int index) {
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!mCancelled)
+                        mListener.onTile(storyboard, index);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,559 @@
+/*****************************************************************************
+ * ThumbnailEngine.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc.util;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.videolan.libvlc.LibVLC;
+import org.videolan.libvlc.MemoryGovernor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous thumbnail loader built on top of {@link VLCUtil#getThumbnail(LibVLC, Uri, int, int)}.
+ * <p>
+ * Thumbnails are generated by a bounded pool of worker threads and kept in a memory cache (sized
+ * in bytes) and in an optional disk cache. Identical requests that are in flight at the same time
+ * are coalesced into a single generation. Pending requests are ordered by priority, so that the
+ * visible items of a list are generated first, and can be cancelled when they scroll off-screen.
+ * <p>
+ * Callbacks are always invoked from the main thread.
+ */
+public class ThumbnailEngine implements MemoryGovernor.Sheddable {
+    private static final String TAG = "VLC/ThumbnailEngine";
+    private static final long KEEP_ALIVE_SECONDS = 5;
+    private static final int DISK_QUALITY = 85;
+
+    /**
+     * Priority of a visible item
+     */
+    public static final int PRIORITY_VISIBLE = 100;
+    /**
+     * Priority of an item that is about to become visible
+     */
+    public static final int PRIORITY_PREFETCH = 50;
+    /**
+     * Priority of an item that is not visible
+     */
+    public static final int PRIORITY_LOW = 0;
+
+    private final LibVLC mLibVLC;
+    private final ThumbnailPool mPool;
+    private final LruCache<String, Bitmap> mMemoryCache;
+    private final DiskCache mDiskCache;
+    private final ThreadPoolExecutor mExecutor;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final HashMap<String, Job> mJobs = new HashMap<>();
+    private final AtomicLong mSequence = new AtomicLong();
+    private final Stats mStats = new Stats();
+    private boolean mReleased = false;
+
+    /**
+     * Create a ThumbnailEngine
+     *
+     * @param libVLC           a valid LibVLC, retained until {@link #release()}
+     * @param workers          maximum number of concurrent thumbnail generations
+     * @param memoryCacheBytes maximum size of the memory cache in bytes
+     * @param diskCacheDir     directory of the disk cache, null to disable the disk cache
+     * @param diskCacheBytes   maximum size of the disk cache in bytes
+     */
+    public ThumbnailEngine(@NonNull LibVLC libVLC, int workers, int memoryCacheBytes,
+                           @Nullable File diskCacheDir, long diskCacheBytes) {
+        this(libVLC, workers, memoryCacheBytes, diskCacheDir, diskCacheBytes, null);
+    }
+
+    /**
+     * Create a ThumbnailEngine reusing Bitmaps from a pool
+     *
+     * @param pool pool providing the Bitmaps of generated thumbnails. Bitmaps that are not
+     *             displayed anymore can be given back to this pool with {@link #recycle(Bitmap)}.
+     * @see #ThumbnailEngine(LibVLC, int, int, File, long)
+     */
+    public ThumbnailEngine(@NonNull LibVLC libVLC, int workers, int memoryCacheBytes,
+                           @Nullable File diskCacheDir, long diskCacheBytes,
+                           @Nullable ThumbnailPool pool) {
+        if (workers <= 0 || memoryCacheBytes <= 0)
+            throw new IllegalArgumentException("invalid workers count or memory cache size");
+        if (!libVLC.retain())
+            throw new IllegalArgumentException("LibVLC is released");
+        mLibVLC = libVLC;
+        mPool = pool;
+        mMemoryCache = new LruCache<String, Bitmap>(memoryCacheBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getRowBytes() * value.getHeight();
+            }
+        };
+        mDiskCache = diskCacheDir != null ? new DiskCache(diskCacheDir, diskCacheBytes) : null;
+        mExecutor = new ThreadPoolExecutor(workers, workers, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(@NonNull Runnable r) {
+                final Thread thread = new Thread(r, "VLC/Thumbnail-" + mCount.incrementAndGet());
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        }) {
+            @Override
+            protected void terminated() {
+                /* Release LibVLC only once running generations are over */
+                mLibVLC.release();
+            }
+        };
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Build the cache key of a thumbnail
+     */
+    public static String getKey(Uri uri, int width, int height) {
+        return uri.toString() + "@" + width + "x" + height;
+    }
+
+    /**
+     * Get a thumbnail from the memory cache
+     *
+     * @return the thumbnail or null if it's not in memory
+     */
+    @Nullable
+    public Bitmap getCached(Uri uri, int width, int height) {
+        return mMemoryCache.get(getKey(uri, width, height));
+    }
+
+    /**
+     * Request a thumbnail.
+     * <p>
+     * If the thumbnail is in the memory cache, the callback is invoked before this method returns
+     * and null is returned. Otherwise, the callback will be invoked from the main thread once the
+     * thumbnail is loaded, unless the returned request is cancelled before.
+     *
+     * @param uri      Uri of the media
+     * @param width    width of the thumbnail
+     * @param height   height of the thumbnail
+     * @param priority see {@link #PRIORITY_VISIBLE}, higher values are generated first
+     * @param callback callback receiving the thumbnail, or null in case of failure
+     * @return a handle on the pending request, or null if the callback was already invoked
+     */
+    @Nullable
+    @MainThread
+    public Request request(@NonNull Uri uri, int width, int height, int priority,
+                           @NonNull Callback callback) {
+        final String key = getKey(uri, width, height);
+        final Bitmap cached = mMemoryCache.get(key);
+        if (cached != null) {
+            mStats.mMemoryHits.incrementAndGet();
+            callback.onThumbnail(uri, cached);
+            return null;
+        }
+        final Request request = new Request(uri, callback, priority);
+        synchronized (this) {
+            if (mReleased)
+                throw new IllegalStateException("ThumbnailEngine is released");
+            Job job = mJobs.get(key);
+            if (job != null) {
+                mStats.mCoalesced.incrementAndGet();
+            } else {
+                job = new Job(key, uri, width, height);
+                mJobs.put(key, job);
+            }
+            request.mJob = job;
+            job.mRequests.add(request);
+            job.updatePriority();
+        }
+        return request;
+    }
+
+    /**
+     * Cancel all pending requests
+     */
+    @MainThread
+    public void cancelAll() {
+        final ArrayList<Job> jobs;
+        synchronized (this) {
+            jobs = new ArrayList<>(mJobs.values());
+        }
+        for (Job job : jobs) {
+            synchronized (this) {
+                for (Request request : job.mRequests)
+                    request.mCancelled = true;
+                mStats.mCancelled.addAndGet(job.mRequests.size());
+                job.mRequests.clear();
+                job.updatePriority();
+            }
+        }
+    }
+
+    /**
+     * Get the thumbnail engine statistics
+     */
+    @NonNull
+    public Stats getStats() {
+        return mStats;
+    }
+
+    /**
+     * Evict a thumbnail from the memory cache and give its Bitmap back to the pool.
+     * The Bitmap must not be displayed anymore.
+     *
+     * @return true if the Bitmap was pooled
+     */
+    public boolean recycle(@NonNull Uri uri, int width, int height) {
+        final Bitmap bitmap = mMemoryCache.remove(getKey(uri, width, height));
+        return bitmap != null && mPool != null && mPool.put(bitmap);
+    }
+
+    /**
+     * Evict all thumbnails from the memory cache
+     */
+    public void clearMemoryCache() {
+        mMemoryCache.evictAll();
+    }
+
+    /**
+     * Evict all thumbnails from the memory cache
+     */
+    @Override
+    public long shed(int level) {
+        final long size = mMemoryCache.size();
+        mMemoryCache.evictAll();
+        return size;
+    }
+
+    /**
+     * Cancel all pending requests and stop the worker threads.
+     * The LibVLC instance is released once the running generations are over.
+     */
+    @MainThread
+    public void release() {
+        synchronized (this) {
+            if (mReleased)
+                return;
+            mReleased = true;
+        }
+        cancelAll();
+        mExecutor.shutdown();
+        mHandler.removeCallbacksAndMessages(null);
+        mMemoryCache.evictAll();
+    }
+
+    private Bitmap load(Job job) {
+        if (mDiskCache != null) {
+            final File file = mDiskCache.get(job.mKey);
+            if (file != null) {
+                final BitmapFactory.Options options = new BitmapFactory.Options();
+                options.inMutable = true;
+                final Bitmap reused = mPool != null ? mPool.getBitmap(job.mWidth, job.mHeight) : null;
+                options.inBitmap = reused;
+                Bitmap bitmap;
+                try {
+                    bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+                } catch (IllegalArgumentException e) {
+                    /* inBitmap can't be reused for this entry */
+                    options.inBitmap = null;
+                    bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+                }
+                /* give back the pooled bitmap when it was not decoded into */
+                if (reused != null && bitmap != reused)
+                    mPool.put(reused);
+                if (bitmap != null) {
+                    mStats.mDiskHits.incrementAndGet();
+                    return bitmap;
+                }
+                mDiskCache.remove(job.mKey);
+            }
+        }
+        final Bitmap bitmap = mPool != null ? mPool.getBitmap(job.mWidth, job.mHeight)
+                : Bitmap.createBitmap(job.mWidth, job.mHeight, Bitmap.Config.ARGB_8888);
+        final long start = SystemClock.elapsedRealtime();
+        final boolean success = VLCUtil.getThumbnail(mLibVLC, job.mUri, job.mWidth, job.mHeight, bitmap);
+        mStats.onGenerated(SystemClock.elapsedRealtime() - start, success);
+        if (!success) {
+            if (mPool != null)
+                mPool.put(bitmap);
+            return null;
+        }
+        if (mDiskCache != null)
+            mDiskCache.put(job.mKey, bitmap, Bitmap.CompressFormat.JPEG, DISK_QUALITY);
+        return bitmap;
+    }
+
+    private void deliver(final Job job, final Bitmap bitmap) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                final ArrayList<Request> requests;
+                synchronized (ThumbnailEngine.this) {
+                    requests = new ArrayList<>(job.mRequests);
+                    job.mRequests.clear();
+                }
+                for (Request request : requests) {
+                    if (!request.mCancelled)
+                        request.mCallback.onThumbnail(request.mUri, bitmap);
+                }
+            }
+        });
+    }
+
+    /**
+     * Callback receiving loaded thumbnails
+     */
+    public interface Callback {
+        /**
+         * @param uri       Uri of the requested media
+         * @param thumbnail the thumbnail, or null if it couldn't be generated
+         */
+        void onThumbnail(Uri uri, @Nullable Bitmap thumbnail);
+    }
+
+    /**
+     * Handle on a pending thumbnail request
+     */
+    public class Request {
+        private final Uri mUri;
+        private final Callback mCallback;
+        private final long mSequence;
+        private int mPriority;
+        private boolean mCancelled = false;
+        private Job mJob;
+
+        private Request(Uri uri, Callback callback, int priority) {
+            mUri = uri;
+            mCallback = callback;
+            mPriority = priority;
+            mSequence = ThumbnailEngine.this.mSequence.incrementAndGet();
+        }
+
+        /**
+         * Change the priority of this request, typically when its item visibility changes
+         */
+        @MainThread
+        public void setPriority(int priority) {
+            synchronized (ThumbnailEngine.this) {
+                if (mCancelled || mPriority == priority)
+                    return;
+                mPriority = priority;
+                mJob.updatePriority();
+            }
+        }
+
+        /**
+         * Cancel this request, its callback won't be invoked.
+         * The thumbnail generation is cancelled too if no other request is waiting for it.
+         */
+        @MainThread
+        public void cancel() {
+            synchronized (ThumbnailEngine.this) {
+                if (mCancelled)
+                    return;
+                mCancelled = true;
+                mStats.mCancelled.incrementAndGet();
+                mJob.mRequests.remove(this);
+                mJob.updatePriority();
+            }
+        }
+
+        public boolean isCancelled() {
+            synchronized (ThumbnailEngine.this) {
+                return mCancelled;
+            }
+        }
+    }
+
+    /**
+     * A thumbnail generation shared by all the requests of the same key
+     */
+    private class Job implements Runnable, Comparable<Job> {
+        private final String mKey;
+        private final Uri mUri;
+        private final int mWidth;
+        private final int mHeight;
+        private final ArrayList<Request> mRequests = new ArrayList<>(1);
+        private int mPriority = Integer.MIN_VALUE;
+        private long mSequence;
+        private boolean mQueued = false;
+        private boolean mStarted = false;
+
+        private Job(String key, Uri uri, int width, int height) {
+            mKey = key;
+            mUri = uri;
+            mWidth = width;
+            mHeight = height;
+        }
+
+        /**
+         * Update the job position in the queue from its requests, must be called locked
+         */
+        private void updatePriority() {
+            if (mStarted)
+                return;
+            if (mRequests.isEmpty()) {
+                if (mQueued)
+                    mExecutor.remove(this);
+                mQueued = false;
+                mJobs.remove(mKey);
+                return;
+            }
+            int priority = Integer.MIN_VALUE;
+            long sequence = Long.MAX_VALUE;
+            for (Request request : mRequests) {
+                if (request.mPriority > priority)
+                    priority = request.mPriority;
+                if (request.mSequence < sequence)
+                    sequence = request.mSequence;
+            }
+            if (mQueued && priority == mPriority)
+                return;
+            /* Re-insert the job since the queue order can't be updated in place, unless a worker
+             * already took it */
+            if (mQueued && !mExecutor.remove(this))
+                return;
+            mPriority = priority;
+            mSequence = sequence;
+            mQueued = true;
+            mExecutor.execute(this);
+        }
+
+        @Override
+        public int compareTo(@NonNull Job other) {
+            if (mPriority != other.mPriority)
+                return mPriority > other.mPriority ? -1 : 1;
+            return mSequence < other.mSequence ? -1 : mSequence > other.mSequence ? 1 : 0;
+        }
+
+        @Override
+        public void run() {
+            synchronized (ThumbnailEngine.this) {
+                if (!mQueued || mStarted || mRequests.isEmpty())
+                    return;
+                mStarted = true;
+            }
+            Bitmap bitmap = null;
+            try {
+                bitmap = load(this);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Thumbnail generation failed for " + mUri, e);
+            }
+            if (bitmap != null)
+                mMemoryCache.put(mKey, bitmap);
+            synchronized (ThumbnailEngine.this) {
+                mJobs.remove(mKey);
+            }
+            deliver(this, bitmap);
+        }
+    }
+
+    /**
+     * Thumbnail engine statistics
+     */
+    public static class Stats {
+        private final AtomicLong mMemoryHits = new AtomicLong();
+        private final AtomicLong mDiskHits = new AtomicLong();
+        private final AtomicLong mGenerated = new AtomicLong();
+        private final AtomicLong mFailed = new AtomicLong();
+        private final AtomicLong mCoalesced = new AtomicLong();
+        private final AtomicLong mCancelled = new AtomicLong();
+        private final AtomicLong mGenerationTime = new AtomicLong();
+        private final AtomicLong mMaxGenerationTime = new AtomicLong();
+
+        private void onGenerated(long time, boolean success) {
+            (success ? mGenerated : mFailed).incrementAndGet();
+            mGenerationTime.addAndGet(time);
+            long max = mMaxGenerationTime.get();
+            while (time > max && !mMaxGenerationTime.compareAndSet(max, time))
+                max = mMaxGenerationTime.get();
+        }
+
+        public long getMemoryHits() {
+            return mMemoryHits.get();
+        }
+
+        public long getDiskHits() {
+            return mDiskHits.get();
+        }
+
+        /**
+         * Number of thumbnails generated by libvlc (cache misses)
+         */
+        public long getGenerated() {
+            return mGenerated.get();
+        }
+
+        public long getFailed() {
+            return mFailed.get();
+        }
+
+        /**
+         * Number of requests served by an already running generation
+         */
+        public long getCoalesced() {
+            return mCoalesced.get();
+        }
+
+        public long getCancelled() {
+            return mCancelled.get();
+        }
+
+        /**
+         * Ratio of thumbnails served from the memory or disk caches
+         */
+        public float getHitRatio() {
+            final long hits = mMemoryHits.get() + mDiskHits.get();
+            final long total = hits + mGenerated.get() + mFailed.get();
+            return total > 0 ? (float) hits / total : 0f;
+        }
+
+        /**
+         * Average libvlc generation time in ms
+         */
+        public long getAverageGenerationTime() {
+            final long count = mGenerated.get() + mFailed.get();
+            return count > 0 ? mGenerationTime.get() / count : 0;
+        }
+
+        /**
+         * Maximum libvlc generation time in ms
+         */
+        public long getMaxGenerationTime() {
+            return mMaxGenerationTime.get();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*****************************************************************************
+ * ThumbnailPool.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc.util;
+
+import android.graphics.Bitmap;
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+
+import org.videolan.libvlc.MemoryGovernor;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+
+/**
+ * Pool of RGBA Bitmaps and direct ByteBuffers reused for thumbnail generation.
+ * <p>
+ * Objects are pooled by dimensions, so that generating thumbnails of the same size in a loop does
+ * not allocate new pixel buffers once the pool is warm. The pool is bounded by a size in bytes,
+ * objects given back while the pool is full are dropped.
+ */
+public class ThumbnailPool implements MemoryGovernor.Sheddable {
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final SparseArray<ArrayDeque<Bitmap>> mBitmaps = new SparseArray<>();
+    private final SparseArray<ArrayDeque<ByteBuffer>> mBuffers = new SparseArray<>();
+    private final long mMaxSize;
+    private long mSize = 0;
+
+    /**
+     * @param maxSize maximum size in bytes of the pooled objects
+     */
+    public ThumbnailPool(long maxSize) {
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Get the size in bytes of a RGBA thumbnail
+     */
+    public static int getByteCount(int width, int height) {
+        return width * height * BYTES_PER_PIXEL;
+    }
+
+    /**
+     * Get a mutable ARGB_8888 Bitmap, from the pool if possible
+     */
+    @NonNull
+    public Bitmap getBitmap(int width, int height) {
+        synchronized (this) {
+            final Bitmap bitmap = poll(mBitmaps, width, height);
+            if (bitmap != null)
+                return bitmap;
+        }
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * Give back a Bitmap that is not used anymore
+     *
+     * @return true if the Bitmap was pooled
+     */
+    public boolean put(@NonNull Bitmap bitmap) {
+        if (bitmap.isRecycled() || !bitmap.isMutable() || bitmap.getConfig() != Bitmap.Config.ARGB_8888)
+            return false;
+        synchronized (this) {
+            return offer(mBitmaps, bitmap.getWidth(), bitmap.getHeight(), bitmap);
+        }
+    }
+
+    /**
+     * Get a direct ByteBuffer big enough for a RGBA thumbnail, from the pool if possible.
+     * Its position is 0 and its limit is set to the thumbnail size.
+     */
+    @NonNull
+    public ByteBuffer getBuffer(int width, int height) {
+        ByteBuffer buffer;
+        synchronized (this) {
+            buffer = poll(mBuffers, width, height);
+        }
+        if (buffer == null)
+            buffer = ByteBuffer.allocateDirect(getByteCount(width, height)).order(ByteOrder.nativeOrder());
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Give back a buffer obtained from {@link #getBuffer(int, int)}
+     *
+     * @return true if the buffer was pooled
+     */
+    public boolean put(@NonNull ByteBuffer buffer, int width, int height) {
+        if (!buffer.isDirect() || buffer.capacity() != getByteCount(width, height))
+            return false;
+        synchronized (this) {
+            return offer(mBuffers, width, height, buffer);
+        }
+    }
+
+    /**
+     * Drop all pooled objects
+     *
+     * @return number of bytes released
+     */
+    public synchronized long clear() {
+        final long size = mSize;
+        mBitmaps.clear();
+        mBuffers.clear();
+        mSize = 0;
+        return size;
+    }
+
+    /**
+     * Drop all pooled objects
+     */
+    @Override
+    public long shed(int level) {
+        return clear();
+    }
+
+    /**
+     * Get the size in bytes of the pooled objects
+     */
+    public synchronized long size() {
+        return mSize;
+    }
+
+    private <T> T poll(SparseArray<ArrayDeque<T>> pool, int width, int height) {
+        final ArrayDeque<T> queue = pool.get(getKey(width, height));
+        final T object = queue != null ? queue.poll() : null;
+        if (object != null)
+            mSize -= getByteCount(width, height);
+        return object;
+    }
+
+    private <T> boolean offer(SparseArray<ArrayDeque<T>> pool, int width, int height, T object) {
+        final int size = getByteCount(width, height);
+        if (mSize + size > mMaxSize)
+            return false;
+        final int key = getKey(width, height);
+        ArrayDeque<T> queue = pool.get(key);
+        if (queue == null) {
+            queue = new ArrayDeque<>();
+            pool.put(key, queue);
+        }
+        queue.offer(object);
+        mSize += size;
+        return true;
+    }
+
+    private static int getKey(int width, int height) {
+        return (width << 16) | (height & 0xffff);
+    }
+}
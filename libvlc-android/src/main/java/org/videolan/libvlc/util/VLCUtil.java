@@ -22,15 +22,19 @@ package org.videolan.libvlc.util;
 
 import android.annotation.TargetApi;
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.content.pm.ApplicationInfo;
+import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Build;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 
 import org.videolan.libvlc.LibVLC;
 import org.videolan.libvlc.Media;
+import org.videolan.libvlc.NativeTrace;
 
 import java.io.BufferedReader;
 import java.io.Closeable;
@@ -40,6 +44,7 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.util.Locale;
 
 public class VLCUtil {
@@ -60,6 +65,7 @@ public class VLCUtil {
             "v6", "v6KZ", "v6T2", "v6K", "v7",
             "*v6-M", "*v6S-M", "*v7E-M", "*v8"};
     private static final String URI_AUTHORIZED_CHARS = "'()*";
+    private static final String MACHINE_SPECS_PREFS = "VLC_MachineSpecs";
     private static String errorMsg = null;
     private static boolean isCompatible = false;
     private static MachineSpecs machineSpecs = null;
@@ -88,6 +94,22 @@ public class VLCUtil {
         // If already checked return cached result
         if (errorMsg != null || isCompatible) return isCompatible;
 
+        final long start = SystemClock.elapsedRealtime();
+        final File lib = searchLibrary(context.getApplicationInfo());
+        /* The verdict only depends on the device and on the library, reuse the previous one */
+        final String specsKey = getMachineSpecsKey(Build.FINGERPRINT, lib);
+        final SharedPreferences prefs = context.getSharedPreferences(MACHINE_SPECS_PREFS, Context.MODE_PRIVATE);
+        if (loadMachineSpecs(prefs, specsKey)) {
+            Log.d(TAG, "machineSpecs: loaded from cache in " + (SystemClock.elapsedRealtime() - start) + " ms");
+            return isCompatible;
+        }
+        checkCompatibleCPU(lib);
+        saveMachineSpecs(prefs, specsKey, machineSpecs, errorMsg, isCompatible);
+        Log.d(TAG, "machineSpecs: detected in " + (SystemClock.elapsedRealtime() - start) + " ms");
+        return isCompatible;
+    }
+
+    private static void checkCompatibleCPU(File lib) {
         boolean hasNeon = false, hasFpu = false, hasArmV6 = false, hasPlaceHolder = false,
                 hasArmV7 = false, hasMips = false, hasX86 = false, is64bits = false, isIntel = false;
         float bogoMIPS = -1;
@@ -125,7 +147,6 @@ public class VLCUtil {
         boolean elfHasArm = false;
         boolean elfHasMips = false;
         boolean elfIs64bits = false;
-        final File lib = searchLibrary(context.getApplicationInfo());
         if (lib != null && (elf = readLib(lib)) != null) {
             elfHasX86 = elf.e_machine == EM_386 || elf.e_machine == EM_X86_64;
             elfHasArm = elf.e_machine == EM_ARM || elf.e_machine == EM_AARCH64;
@@ -272,7 +293,61 @@ public class VLCUtil {
         machineSpecs.bogoMIPS = bogoMIPS;
         machineSpecs.processors = processors;
         machineSpecs.frequency = frequency;
-        return isCompatible;
+    }
+
+    /**
+     * Get the key of the cached machine specs: they are detected again after a system update or
+     * an update of the library
+     */
+    static String getMachineSpecsKey(String fingerprint, File lib) {
+        final StringBuilder sb = new StringBuilder(fingerprint);
+        if (lib != null)
+            sb.append('|').append(lib.getPath()).append('|').append(lib.length()).append('|').append(lib.lastModified());
+        return sb.toString();
+    }
+
+    /**
+     * Load the cached machine specs and compatibility verdict
+     *
+     * @return false if there is no cache for this key
+     */
+    static boolean loadMachineSpecs(SharedPreferences prefs, String key) {
+        if (!key.equals(prefs.getString("key", null)))
+            return false;
+        final MachineSpecs specs = new MachineSpecs();
+        specs.hasNeon = prefs.getBoolean("hasNeon", false);
+        specs.hasFpu = prefs.getBoolean("hasFpu", false);
+        specs.hasArmV6 = prefs.getBoolean("hasArmV6", false);
+        specs.hasArmV7 = prefs.getBoolean("hasArmV7", false);
+        specs.hasMips = prefs.getBoolean("hasMips", false);
+        specs.hasX86 = prefs.getBoolean("hasX86", false);
+        specs.is64bits = prefs.getBoolean("is64bits", false);
+        specs.bogoMIPS = prefs.getFloat("bogoMIPS", -1);
+        specs.processors = prefs.getInt("processors", 1);
+        specs.frequency = prefs.getFloat("frequency", -1);
+        machineSpecs = specs;
+        errorMsg = prefs.getString("errorMsg", null);
+        isCompatible = prefs.getBoolean("isCompatible", false);
+        return true;
+    }
+
+    static void saveMachineSpecs(SharedPreferences prefs, String key, MachineSpecs specs,
+                                 String error, boolean compatible) {
+        prefs.edit()
+                .putString("key", key)
+                .putBoolean("hasNeon", specs.hasNeon)
+                .putBoolean("hasFpu", specs.hasFpu)
+                .putBoolean("hasArmV6", specs.hasArmV6)
+                .putBoolean("hasArmV7", specs.hasArmV7)
+                .putBoolean("hasMips", specs.hasMips)
+                .putBoolean("hasX86", specs.hasX86)
+                .putBoolean("is64bits", specs.is64bits)
+                .putFloat("bogoMIPS", specs.bogoMIPS)
+                .putInt("processors", specs.processors)
+                .putFloat("frequency", specs.frequency)
+                .putString("errorMsg", error)
+                .putBoolean("isCompatible", compatible)
+                .apply();
     }
 
     public static MachineSpecs getMachineSpecs() {
@@ -310,9 +385,12 @@ public class VLCUtil {
         RandomAccessFile in = null;
         try {
             in = new RandomAccessFile(file, "r");
+            // map the library once, headers and sections are then read in place
+            final FileChannel channel = in.getChannel();
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
 
             ElfData elf = new ElfData();
-            if (!readHeader(in, elf))
+            if (!readHeader(buffer, elf))
                 return null;
 
             switch (elf.e_machine) {
@@ -322,20 +400,16 @@ public class VLCUtil {
                 case EM_AARCH64:
                     return elf;
                 case EM_ARM:
-                    in.close();
-                    in = new RandomAccessFile(file, "r");
-                    if (!readSection(in, elf))
+                    if (!readSection(buffer, elf))
                         return null;
-                    in.close();
-                    in = new RandomAccessFile(file, "r");
-                    if (!readArmAttributes(in, elf))
+                    if (!readArmAttributes(buffer, elf))
                         return null;
                     break;
                 default:
                     return null;
             }
             return elf;
-        } catch (IOException e) {
+        } catch (IOException | RuntimeException e) {
             e.printStackTrace();
         } finally {
             close(in);
@@ -343,26 +417,24 @@ public class VLCUtil {
         return null;
     }
 
-    private static boolean readHeader(RandomAccessFile in, ElfData elf) throws IOException {
+    private static boolean readHeader(ByteBuffer buffer, ElfData elf) {
         // http://www.sco.com/developers/gabi/1998-04-29/ch4.eheader.html
-        byte[] bytes = new byte[ELF_HEADER_SIZE];
-        in.readFully(bytes);
-        if (bytes[0] != 127 ||
-                bytes[1] != 'E' ||
-                bytes[2] != 'L' ||
-                bytes[3] != 'F' ||
-                (bytes[4] != 1 && bytes[4] != 2)) {
+        if (buffer.limit() < ELF_HEADER_SIZE ||
+                buffer.get(0) != 127 ||
+                buffer.get(1) != 'E' ||
+                buffer.get(2) != 'L' ||
+                buffer.get(3) != 'F' ||
+                (buffer.get(4) != 1 && buffer.get(4) != 2)) {
             Log.e(TAG, "ELF header invalid");
             return false;
         }
 
-        elf.is64bits = bytes[4] == 2;
-        elf.order = bytes[5] == 1
+        elf.is64bits = buffer.get(4) == 2;
+        elf.order = buffer.get(5) == 1
                 ? ByteOrder.LITTLE_ENDIAN // ELFDATA2LSB
                 : ByteOrder.BIG_ENDIAN;   // ELFDATA2MSB
 
-        // wrap bytes in a ByteBuffer to force endianess
-        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        // force endianess
         buffer.order(elf.order);
 
         elf.e_machine = buffer.getShort(18);    /* Architecture */
@@ -371,36 +443,31 @@ public class VLCUtil {
         return true;
     }
 
-    private static boolean readSection(RandomAccessFile in, ElfData elf) throws IOException {
-        byte[] bytes = new byte[SECTION_HEADER_SIZE];
-        in.seek(elf.e_shoff);
-
+    private static boolean readSection(ByteBuffer buffer, ElfData elf) {
         for (int i = 0; i < elf.e_shnum; ++i) {
-            in.readFully(bytes);
-
-            // wrap bytes in a ByteBuffer to force endianess
-            ByteBuffer buffer = ByteBuffer.wrap(bytes);
-            buffer.order(elf.order);
+            final int offset = elf.e_shoff + i * SECTION_HEADER_SIZE;
+            if (offset < 0 || offset + SECTION_HEADER_SIZE > buffer.limit())
+                return false;
 
-            int sh_type = buffer.getInt(4); /* Section type */
+            int sh_type = buffer.getInt(offset + 4); /* Section type */
             if (sh_type != SHT_ARM_ATTRIBUTES)
                 continue;
 
-            elf.sh_offset = buffer.getInt(16);  /* Section file offset */
-            elf.sh_size = buffer.getInt(20);    /* Section size in bytes */
+            elf.sh_offset = buffer.getInt(offset + 16);  /* Section file offset */
+            elf.sh_size = buffer.getInt(offset + 20);    /* Section size in bytes */
             return true;
         }
 
         return false;
     }
 
-    private static boolean readArmAttributes(RandomAccessFile in, ElfData elf) throws IOException {
-        byte[] bytes = new byte[elf.sh_size];
-        in.seek(elf.sh_offset);
-        in.readFully(bytes);
-
-        // wrap bytes in a ByteBuffer to force endianess
-        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    private static boolean readArmAttributes(ByteBuffer file, ElfData elf) {
+        if (elf.sh_offset < 0 || elf.sh_size < 0 || elf.sh_offset + elf.sh_size > file.limit())
+            return false;
+        file.position(elf.sh_offset);
+        ByteBuffer buffer = file.slice();
+        buffer.limit(elf.sh_size);
+        // slices don't inherit the endianess
         buffer.order(elf.order);
 
         //http://infocenter.arm.com/help/topic/com.arm.doc.ihi0044e/IHI0044E_aaelf.pdf
@@ -530,10 +597,7 @@ public class VLCUtil {
      * @return a bytearray with the RGBA thumbnail data inside.
      */
     public static byte[] getThumbnail(LibVLC libVLC, Uri uri, int i_width, int i_height) {
-        /* dvd thumbnails can work only with dvdsimple demux */
-        if (uri.getLastPathSegment().endsWith(".iso"))
-            uri = Uri.parse("dvdsimple://" + uri.getEncodedPath());
-        final Media media = new Media(libVLC, uri);
+        final Media media = createThumbnailMedia(libVLC, uri);
         byte[] bytes = getThumbnail(media, i_width, i_height);
         media.release();
         return bytes;
@@ -544,7 +608,78 @@ public class VLCUtil {
         media.addOption(":no-spu");
         media.addOption(":no-osd");
         media.addOption(":input-fast-seek");
-        return nativeGetThumbnail(media, i_width, i_height);
+        final long begin = NativeTrace.begin();
+        final byte[] ret = nativeGetThumbnail(media, i_width, i_height);
+        NativeTrace.end(NativeTrace.UTIL_GET_THUMBNAIL, begin);
+        return ret;
+    }
+
+    /**
+     * Get a media thumbnail into a caller provided buffer.
+     *
+     * @param buffer buffer with at least i_width * i_height * 4 remaining bytes, see
+     *               {@link ThumbnailPool#getBuffer(int, int)}. The RGBA data is written at the
+     *               current position, which is left unchanged.
+     * @return true if the thumbnail was written into the buffer
+     */
+    public static boolean getThumbnail(LibVLC libVLC, Uri uri, int i_width, int i_height, @NonNull ByteBuffer buffer) {
+        final Media media = createThumbnailMedia(libVLC, uri);
+        final boolean ret = getThumbnail(media, i_width, i_height, buffer);
+        media.release();
+        return ret;
+    }
+
+    /**
+     * @see #getThumbnail(LibVLC, Uri, int, int, ByteBuffer)
+     */
+    public static boolean getThumbnail(Media media, int i_width, int i_height, @NonNull ByteBuffer buffer) {
+        final int size = ThumbnailPool.getByteCount(i_width, i_height);
+        if (buffer.remaining() < size)
+            throw new IllegalArgumentException("buffer is too small");
+        final byte[] bytes = getThumbnail(media, i_width, i_height);
+        if (bytes == null || bytes.length < size)
+            return false;
+        final int position = buffer.position();
+        buffer.put(bytes, 0, size);
+        buffer.position(position);
+        return true;
+    }
+
+    /**
+     * Get a media thumbnail into a reusable Bitmap, avoiding the allocation of a new Bitmap per
+     * thumbnail.
+     *
+     * @param bitmap mutable ARGB_8888 Bitmap of i_width x i_height pixels, see
+     *               {@link ThumbnailPool#getBitmap(int, int)}
+     * @return true if the thumbnail was written into the Bitmap
+     */
+    public static boolean getThumbnail(LibVLC libVLC, Uri uri, int i_width, int i_height, @NonNull Bitmap bitmap) {
+        final Media media = createThumbnailMedia(libVLC, uri);
+        final boolean ret = getThumbnail(media, i_width, i_height, bitmap);
+        media.release();
+        return ret;
+    }
+
+    /**
+     * @see #getThumbnail(LibVLC, Uri, int, int, Bitmap)
+     */
+    public static boolean getThumbnail(Media media, int i_width, int i_height, @NonNull Bitmap bitmap) {
+        if (bitmap.getWidth() != i_width || bitmap.getHeight() != i_height
+                || bitmap.getConfig() != Bitmap.Config.ARGB_8888 || !bitmap.isMutable())
+            throw new IllegalArgumentException("bitmap should be a mutable ARGB_8888 Bitmap of the thumbnail size");
+        final int size = ThumbnailPool.getByteCount(i_width, i_height);
+        final byte[] bytes = getThumbnail(media, i_width, i_height);
+        if (bytes == null || bytes.length < size)
+            return false;
+        bitmap.copyPixelsFromBuffer(ByteBuffer.wrap(bytes, 0, size));
+        return true;
+    }
+
+    private static Media createThumbnailMedia(LibVLC libVLC, Uri uri) {
+        /* dvd thumbnails can work only with dvdsimple demux */
+        if (uri.getLastPathSegment().endsWith(".iso"))
+            uri = Uri.parse("dvdsimple://" + uri.getEncodedPath());
+        return new Media(libVLC, uri);
     }
 
     private static void close(Closeable closeable) {
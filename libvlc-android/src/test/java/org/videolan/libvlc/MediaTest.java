@@ -0,0 +1,80 @@
+/*****************************************************************************
+ * MediaTest.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc;
+
+import org.junit.Test;
+import org.videolan.libvlc.util.DecoderTuning;
+import org.videolan.libvlc.util.VLCUtil;
+
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MediaTest {
+    private static VLCUtil.MachineSpecs getSpecs(int processors, float frequency) {
+        final VLCUtil.MachineSpecs specs = new VLCUtil.MachineSpecs();
+        specs.hasNeon = true;
+        specs.hasArmV7 = true;
+        specs.hasArmV6 = true;
+        specs.processors = processors;
+        specs.frequency = frequency;
+        return specs;
+    }
+
+    private static boolean hasHurryUpOption(List<String> options) {
+        for (String option : options) {
+            if (Media.isHurryUpOption(option))
+                return true;
+        }
+        return false;
+    }
+
+    @Test
+    public void lowLatencyProfileSetsHurryUp() {
+        final List<String> options = Media.getLowLatencyOptions(-1);
+        assertTrue(options.contains(":network-caching=" + Media.LOW_LATENCY_CACHING));
+        assertTrue(options.contains(":avcodec-hurry-up"));
+        assertTrue(hasHurryUpOption(options));
+    }
+
+    @Test
+    public void tuningAfterLowLatencyProfileKeepsHurryUp() {
+        /* setLowLatencyProfile() then setHWDecoderEnabled() on a device with headroom */
+        final boolean hurryUpSet = hasHurryUpOption(Media.getLowLatencyOptions(-1));
+        final DecoderTuning tuning = DecoderTuning.get(getSpecs(8, 2400f), 1920, 1080, 30f, null);
+        assertFalse(tuning.hurryUp);
+        assertTrue(tuning.getOptions().contains(":no-avcodec-hurry-up"));
+
+        final List<String> options = tuning.getOptions(!hurryUpSet);
+        assertFalse(hasHurryUpOption(options));
+        assertTrue(options.contains(":avcodec-threads=" + tuning.threads));
+        assertTrue(options.contains(":avcodec-skiploopfilter=" + tuning.skipLoopFilter));
+        assertTrue(options.contains(":avcodec-skip-frame=" + tuning.skipFrame));
+    }
+
+    @Test
+    public void tuningWithoutProfileSetsHurryUp() {
+        final DecoderTuning tuning = DecoderTuning.get(getSpecs(2, 1000f), 1920, 1080, 30f, null);
+        assertTrue(tuning.hurryUp);
+        assertTrue(tuning.getOptions(true).contains(":avcodec-hurry-up"));
+    }
+}
@@ -0,0 +1,122 @@
+/*****************************************************************************
+ * NetworkCachingControllerTest.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class NetworkCachingControllerTest {
+    private static final String HOST = "example.org";
+
+    private NetworkCachingController mController;
+
+    @Before
+    public void setUp() {
+        mController = new NetworkCachingController(null, null);
+    }
+
+    /**
+     * Smooth session with an input twice as fast as the demux while buffering
+     */
+    private int smoothSession() {
+        mController.beginSession(HOST, 0);
+        mController.onBuffering(50f, 0);
+        mController.onStats(3000f, 1000f);
+        mController.onBuffering(100f, 100);
+        return mController.endSession(10000);
+    }
+
+    @Test
+    public void unknownHostUsesDefault() {
+        assertEquals(NetworkCachingController.DEFAULT_CACHING, mController.getCaching(null));
+        assertEquals(NetworkCachingController.DEFAULT_CACHING, mController.getCaching(HOST));
+    }
+
+    @Test
+    public void endWithoutSessionIsIgnored() {
+        assertEquals(-1, mController.endSession(0));
+        mController.beginSession(null, 0);
+        mController.onBuffering(100f, 0);
+        assertEquals(-1, mController.endSession(1000));
+    }
+
+    @Test
+    public void smoothSessionDecreasesCaching() {
+        assertEquals(900, smoothSession());
+        assertEquals(900, mController.getCaching(HOST));
+        assertEquals(NetworkCachingController.DEFAULT_CACHING, mController.getCaching("other.org"));
+    }
+
+    @Test
+    public void stallIncreasesCaching() {
+        mController.beginSession(HOST, 0);
+        mController.onBuffering(100f, 500);
+        mController.onBuffering(20f, 2000);
+        mController.onBuffering(100f, 3000);
+        /* 1.5 times the caching, plus the 1s stall */
+        assertEquals(2500, mController.endSession(5000));
+        assertEquals(2500, mController.getCaching(HOST));
+    }
+
+    @Test
+    public void stallUntilTheEndIsCounted() {
+        mController.beginSession(HOST, 0);
+        mController.onBuffering(100f, 0);
+        mController.onBuffering(0f, 1000);
+        assertEquals(1500 + 4000, mController.endSession(5000));
+    }
+
+    @Test
+    public void lowBandwidthIncreasesCaching() {
+        mController.beginSession(HOST, 0);
+        mController.onBuffering(50f, 0);
+        mController.onStats(1100f, 1000f);
+        mController.onBuffering(100f, 100);
+        assertEquals(1250, mController.endSession(10000));
+    }
+
+    @Test
+    public void statsAreIgnoredOnceBuffered() {
+        mController.beginSession(HOST, 0);
+        mController.onBuffering(100f, 0);
+        /* throttled input, says nothing about the bandwidth */
+        mController.onStats(1000f, 1000f);
+        assertEquals(NetworkCachingController.DEFAULT_CACHING, mController.endSession(10000));
+    }
+
+    @Test
+    public void cachingIsBounded() {
+        for (int i = 0; i < 50; ++i)
+            smoothSession();
+        assertEquals(NetworkCachingController.MIN_CACHING, mController.getCaching(HOST));
+
+        for (int i = 0; i < 10; ++i) {
+            mController.beginSession(HOST, 0);
+            mController.onBuffering(100f, 0);
+            mController.onBuffering(0f, 1000);
+            mController.onBuffering(100f, 5000);
+            mController.endSession(6000);
+        }
+        assertEquals(NetworkCachingController.MAX_CACHING, mController.getCaching(HOST));
+    }
+}
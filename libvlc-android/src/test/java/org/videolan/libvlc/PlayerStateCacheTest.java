@@ -0,0 +1,107 @@
+/*****************************************************************************
+ * ScrubSessionTest.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PlayerStateCacheTest {
+    private PlayerStateCache mCache;
+    private PlayerState mState;
+
+    @Before
+    public void setUp() {
+        mCache = new PlayerStateCache();
+        mState = new PlayerState();
+    }
+
+    private void event(int eventType, long arg1, long arg2) {
+        mCache.onEvent(eventType, arg1, arg2);
+    }
+
+    private PlayerState fill() {
+        mCache.fill(mState);
+        return mState;
+    }
+
+    @Test
+    public void initialState() {
+        fill();
+        assertEquals(Media.State.NothingSpecial, mState.state);
+        assertFalse(mState.playing);
+        assertEquals(-1, mState.audioTrack);
+        assertEquals(-1, mState.spuTrack);
+    }
+
+    @Test
+    public void followsPlaybackEvents() {
+        event(MediaPlayer.Event.MediaChanged, 0, 0);
+        event(MediaPlayer.Event.Opening, 0, 0);
+        fill();
+        assertEquals(Media.State.Opening, mState.state);
+        assertTrue(mState.playing);
+
+        event(MediaPlayer.Event.SeekableChanged, 1, 0);
+        event(MediaPlayer.Event.PausableChanged, 1, 0);
+        event(MediaPlayer.Event.ESSelected, Media.Track.Type.Audio, 3);
+        event(MediaPlayer.Event.ESSelected, Media.Track.Type.Text, 5);
+        event(MediaPlayer.Event.Playing, 0, 0);
+        event(MediaPlayer.Event.Paused, 0, 0);
+        fill();
+        assertEquals(Media.State.Paused, mState.state);
+        assertFalse(mState.playing);
+        assertTrue(mState.seekable);
+        assertTrue(mState.pausable);
+        assertEquals(3, mState.audioTrack);
+        assertEquals(5, mState.spuTrack);
+    }
+
+    @Test
+    public void deletedTrackIsUnselected() {
+        event(MediaPlayer.Event.ESSelected, Media.Track.Type.Audio, 3);
+        event(MediaPlayer.Event.ESSelected, Media.Track.Type.Text, 5);
+        event(MediaPlayer.Event.ESDeleted, Media.Track.Type.Audio, 4);
+        assertEquals(3, fill().audioTrack);
+        event(MediaPlayer.Event.ESDeleted, Media.Track.Type.Audio, 3);
+        assertEquals(-1, fill().audioTrack);
+        assertEquals(5, mState.spuTrack);
+        event(MediaPlayer.Event.Stopped, 0, 0);
+        assertEquals(-1, fill().spuTrack);
+        assertEquals(Media.State.Stopped, mState.state);
+    }
+
+    @Test
+    public void mediaChangeResetsTheState() {
+        event(MediaPlayer.Event.SeekableChanged, 1, 0);
+        event(MediaPlayer.Event.PausableChanged, 1, 0);
+        event(MediaPlayer.Event.EncounteredError, 0, 0);
+        assertEquals(Media.State.Error, fill().state);
+        event(MediaPlayer.Event.MediaChanged, 0, 0);
+        fill();
+        assertEquals(Media.State.NothingSpecial, mState.state);
+        assertFalse(mState.seekable);
+        assertFalse(mState.pausable);
+    }
+}
@@ -0,0 +1,246 @@
+/*****************************************************************************
+ * ScrubSessionTest.java
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ScrubSessionTest {
+    private ManualScheduler mScheduler;
+    private FakeBackend mBackend;
+    private ScrubSession mSession;
+    private int mEndedCount;
+
+    /**
+     * Scheduler with a manual clock, tasks run when the clock goes past their time
+     */
+    private static class ManualScheduler implements ScrubSession.Scheduler {
+        private static class Task {
+            final Runnable runnable;
+            final long time;
+
+            Task(Runnable runnable, long time) {
+                this.runnable = runnable;
+                this.time = time;
+            }
+        }
+
+        private final List<Task> mTasks = new ArrayList<>();
+        private long mNow = 0;
+
+        @Override
+        public long now() {
+            return mNow;
+        }
+
+        @Override
+        public void post(Runnable runnable, long delay) {
+            mTasks.add(new Task(runnable, mNow + delay));
+        }
+
+        @Override
+        public void cancel(Runnable runnable) {
+            final Iterator<Task> it = mTasks.iterator();
+            while (it.hasNext()) {
+                if (it.next().runnable == runnable)
+                    it.remove();
+            }
+        }
+
+        void advance(long time) {
+            mNow += time;
+            while (true) {
+                Task next = null;
+                for (Task task : mTasks) {
+                    if (task.time <= mNow && (next == null || task.time < next.time))
+                        next = task;
+                }
+                if (next == null)
+                    return;
+                mTasks.remove(next);
+                next.runnable.run();
+            }
+        }
+    }
+
+    private static class FakeBackend implements ScrubSession.SeekBackend {
+        final List<Integer> seeks = new ArrayList<>();
+        final List<Long> times = new ArrayList<>();
+        final List<Boolean> fasts = new ArrayList<>();
+
+        @Override
+        public void seek(int seek, long time, boolean fast) {
+            seeks.add(seek);
+            times.add(time);
+            fasts.add(fast);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        mScheduler = new ManualScheduler();
+        mBackend = new FakeBackend();
+        mSession = new ScrubSession(mBackend, mScheduler);
+        mEndedCount = 0;
+        mSession.setListener(new ScrubSession.Listener() {
+            @Override
+            public void onScrubEnded(ScrubSession session) {
+                mEndedCount++;
+            }
+        });
+    }
+
+    private void complete(long latency) {
+        complete(latency, mBackend.seeks.isEmpty() ? 0 : mBackend.seeks.get(mBackend.seeks.size() - 1));
+    }
+
+    private void complete(long latency, int seek) {
+        mScheduler.advance(latency);
+        mSession.onSeekCompleted(seek);
+        mScheduler.advance(0);
+    }
+
+    @Test
+    public void coalescesRequestsWhileInFlight() {
+        mSession.seekTo(1000);
+        mSession.seekTo(2000);
+        mSession.seekTo(3000);
+        assertEquals(1, mBackend.times.size());
+        assertEquals(1000L, (long) mBackend.times.get(0));
+
+        complete(100);
+        assertEquals(2, mBackend.times.size());
+        assertEquals(3000L, (long) mBackend.times.get(1));
+        assertTrue(mBackend.fasts.get(1));
+
+        assertEquals(3, mSession.getRequestCount());
+        assertEquals(2, mSession.getSeekCount());
+        assertEquals(1, mSession.getCoalescedCount());
+        assertEquals(100, mSession.getAverageLatency());
+    }
+
+    @Test
+    public void endsWithPreciseSeekToLastTarget() {
+        mSession.seekTo(1000);
+        mSession.seekTo(5000);
+        mSession.end();
+        assertEquals(1, mBackend.times.size());
+
+        complete(50);
+        assertEquals(2, mBackend.times.size());
+        assertEquals(5000L, (long) mBackend.times.get(1));
+        assertFalse(mBackend.fasts.get(1));
+        assertEquals(0, mEndedCount);
+
+        complete(200);
+        assertEquals(1, mEndedCount);
+        assertEquals(250, mSession.getFinalLatency());
+        assertEquals(200, mSession.getMaxLatency());
+    }
+
+    @Test
+    public void endAfterCompletionSeeksLastIssuedTarget() {
+        mSession.seekTo(1000);
+        complete(10);
+        mSession.end();
+        assertEquals(2, mBackend.times.size());
+        assertEquals(1000L, (long) mBackend.times.get(1));
+        assertFalse(mBackend.fasts.get(1));
+        complete(10);
+        assertEquals(1, mEndedCount);
+    }
+
+    @Test
+    public void timeoutReleasesTheNextSeek() {
+        mSession.seekTo(1000);
+        mSession.seekTo(2000);
+        mScheduler.advance(999);
+        assertEquals(1, mBackend.times.size());
+        mScheduler.advance(1);
+        assertEquals(2, mBackend.times.size());
+        assertEquals(2000L, (long) mBackend.times.get(1));
+    }
+
+    @Test
+    public void lateCompletionIsIgnored() {
+        mSession.seekTo(1000);
+        mScheduler.advance(1000);
+        /* the timeout completed the seek, nothing is in flight */
+        complete(10);
+        assertEquals(1, mBackend.times.size());
+        assertEquals(1000, mSession.getAverageLatency());
+    }
+
+    @Test
+    public void lateCompletionDoesntCompleteTheNextSeek() {
+        mSession.seekTo(1000);
+        mSession.seekTo(2000);
+        mScheduler.advance(1000);
+        /* the timeout released the next seek */
+        assertEquals(2, mBackend.times.size());
+        final int timedOut = mBackend.seeks.get(0);
+        final int next = mBackend.seeks.get(1);
+        assertTrue(timedOut != next);
+
+        mSession.seekTo(3000);
+        complete(10, timedOut);
+        assertEquals(2, mBackend.times.size());
+
+        complete(20, next);
+        assertEquals(3, mBackend.times.size());
+        assertEquals(3000L, (long) mBackend.times.get(2));
+        assertEquals(1000, mSession.getMaxLatency());
+        assertEquals((1000 + 30) / 2, mSession.getAverageLatency());
+    }
+
+    @Test
+    public void cancelSkipsTheFinalSeek() {
+        mSession.seekTo(1000);
+        mSession.seekTo(2000);
+        mSession.cancel();
+        assertEquals(1, mEndedCount);
+        assertTrue(mSession.isEnded());
+        complete(10);
+        assertEquals(1, mBackend.times.size());
+        assertEquals(-1, mSession.getFinalLatency());
+    }
+
+    @Test
+    public void endWithoutSeekFinishesAtOnce() {
+        mSession.end();
+        assertEquals(1, mEndedCount);
+        assertTrue(mBackend.times.isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void seekAfterEndThrows() {
+        mSession.end();
+        mSession.seekTo(1000);
+    }
+}
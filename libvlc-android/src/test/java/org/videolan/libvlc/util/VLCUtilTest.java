@@ -0,0 +1,232 @@
+/*****************************************************************************
+ * VLCUtilTest.java     
+ *****************************************************************************
+ * Copyright © 2026 VLC authors and VideoLAN
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston MA 02110-1301, USA.
+ *****************************************************************************/
+
+package org.videolan.libvlc.util;
+
+import android.content.SharedPreferences;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class VLCUtilTest {
+    private static final String FINGERPRINT = "vendor/device/device:9/PQ1A/1234:user/release-keys";
+
+    /**
+     * In memory SharedPreferences, edits are applied at once
+     */
+    private static class MemoryPreferences implements SharedPreferences {
+        private final HashMap<String, Object> mValues = new HashMap<>();
+
+        @Override
+        public Map<String, ?> getAll() {
+            return new HashMap<>(mValues);
+        }
+
+        @Override
+        public String getString(String key, String defValue) {
+            return mValues.containsKey(key) ? (String) mValues.get(key) : defValue;
+        }
+
+        @Override
+        public Set<String> getStringSet(String key, Set<String> defValues) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getInt(String key, int defValue) {
+            return mValues.containsKey(key) ? (Integer) mValues.get(key) : defValue;
+        }
+
+        @Override
+        public long getLong(String key, long defValue) {
+            return mValues.containsKey(key) ? (Long) mValues.get(key) : defValue;
+        }
+
+        @Override
+        public float getFloat(String key, float defValue) {
+            return mValues.containsKey(key) ? (Float) mValues.get(key) : defValue;
+        }
+
+        @Override
+        public boolean getBoolean(String key, boolean defValue) {
+            return mValues.containsKey(key) ? (Boolean) mValues.get(key) : defValue;
+        }
+
+        @Override
+        public boolean contains(String key) {
+            return mValues.containsKey(key);
+        }
+
+        @Override
+        public Editor edit() {
+            return new Editor() {
+                @Override
+                public Editor putString(String key, String value) {
+                    mValues.put(key, value);
+                    return this;
+                }
+
+                @Override
+                public Editor putStringSet(String key, Set<String> values) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Editor putInt(String key, int value) {
+                    mValues.put(key, value);
+                    return this;
+                }
+
+                @Override
+                public Editor putLong(String key, long value) {
+                    mValues.put(key, value);
+                    return this;
+                }
+
+                @Override
+                public Editor putFloat(String key, float value) {
+                    mValues.put(key, value);
+                    return this;
+                }
+
+                @Override
+                public Editor putBoolean(String key, boolean value) {
+                    mValues.put(key, value);
+                    return this;
+                }
+
+                @Override
+                public Editor remove(String key) {
+                    mValues.remove(key);
+                    return this;
+                }
+
+                @Override
+                public Editor clear() {
+                    mValues.clear();
+                    return this;
+                }
+
+                @Override
+                public boolean commit() {
+                    return true;
+                }
+
+                @Override
+                public void apply() {
+                }
+            };
+        }
+
+        @Override
+        public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        }
+
+        @Override
+        public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        }
+    }
+
+    private static VLCUtil.MachineSpecs getSpecs() {
+        final VLCUtil.MachineSpecs specs = new VLCUtil.MachineSpecs();
+        specs.hasNeon = true;
+        specs.hasFpu = true;
+        specs.hasArmV6 = true;
+        specs.hasArmV7 = true;
+        specs.is64bits = true;
+        specs.bogoMIPS = 38.4f;
+        specs.processors = 8;
+        specs.frequency = 2841.6f;
+        return specs;
+    }
+
+    @Test
+    public void machineSpecsRoundTrip() {
+        final SharedPreferences prefs = new MemoryPreferences();
+        final String key = VLCUtil.getMachineSpecsKey(FINGERPRINT, null);
+        assertFalse(VLCUtil.loadMachineSpecs(prefs, key));
+
+        final VLCUtil.MachineSpecs saved = getSpecs();
+        VLCUtil.saveMachineSpecs(prefs, key, saved, null, true);
+        assertTrue(VLCUtil.loadMachineSpecs(prefs, key));
+
+        final VLCUtil.MachineSpecs loaded = VLCUtil.getMachineSpecs();
+        assertEquals(saved.hasNeon, loaded.hasNeon);
+        assertEquals(saved.hasFpu, loaded.hasFpu);
+        assertEquals(saved.hasArmV6, loaded.hasArmV6);
+        assertEquals(saved.hasArmV7, loaded.hasArmV7);
+        assertEquals(saved.hasMips, loaded.hasMips);
+        assertEquals(saved.hasX86, loaded.hasX86);
+        assertEquals(saved.is64bits, loaded.is64bits);
+        assertEquals(saved.bogoMIPS, loaded.bogoMIPS, 0f);
+        assertEquals(saved.processors, loaded.processors);
+        assertEquals(saved.frequency, loaded.frequency, 0f);
+        assertNull(VLCUtil.getErrorMsg());
+    }
+
+    @Test
+    public void incompatibleVerdictIsCached() {
+        final SharedPreferences prefs = new MemoryPreferences();
+        final String key = VLCUtil.getMachineSpecsKey(FINGERPRINT, null);
+        VLCUtil.saveMachineSpecs(prefs, key, getSpecs(), "64bits build on 32bits device", false);
+        assertTrue(VLCUtil.loadMachineSpecs(prefs, key));
+        assertEquals("64bits build on 32bits device", VLCUtil.getErrorMsg());
+    }
+
+    @Test
+    public void systemUpdateInvalidatesTheCache() {
+        final SharedPreferences prefs = new MemoryPreferences();
+        VLCUtil.saveMachineSpecs(prefs, VLCUtil.getMachineSpecsKey(FINGERPRINT, null), getSpecs(), null, true);
+        final String updated = FINGERPRINT.replace("PQ1A", "PQ2A");
+        assertFalse(VLCUtil.loadMachineSpecs(prefs, VLCUtil.getMachineSpecsKey(updated, null)));
+    }
+
+    @Test
+    public void libraryUpdateInvalidatesTheCache() throws IOException {
+        final File lib = File.createTempFile("libvlc", ".so");
+        try {
+            final SharedPreferences prefs = new MemoryPreferences();
+            final String key = VLCUtil.getMachineSpecsKey(FINGERPRINT, lib);
+            VLCUtil.saveMachineSpecs(prefs, key, getSpecs(), null, true);
+            assertTrue(VLCUtil.loadMachineSpecs(prefs, VLCUtil.getMachineSpecsKey(FINGERPRINT, lib)));
+
+            final FileOutputStream fos = new FileOutputStream(lib);
+            try {
+                fos.write(new byte[16]);
+            } finally {
+                fos.close();
+            }
+            assertFalse(VLCUtil.loadMachineSpecs(prefs, VLCUtil.getMachineSpecsKey(FINGERPRINT, lib)));
+        } finally {
+            lib.delete();
+        }
+    }
+}